@@ -1,19 +1,51 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Your implementation of an AVL Tree.
  *
+ * Operations are loops rather than recursion. add and remove record the
+ * path from the root in an array, then walk it back up to update heights
+ * and rotate, stopping early once a subtree's height did not change.
+ *
+ * The tree can be iterated lazily in sorted order. Iterators keep only the
+ * path to their next node, so they use O(log n) memory, can seek to a key,
+ * and are fail-fast like HashMap's.
+ *
  * @author Carson Duerr
  * @userid cduerr3
  * @GTID 903186923
  * @version 1.0
  */
-public class AVL<T extends Comparable<? super T>> {
-    // DO NOT ADD OR MODIFY INSTANCE VARIABLES.
+public class AVL<T extends Comparable<? super T>> implements Iterable<T> {
+    /**
+     * Longest possible root to leaf path. An AVL tree of height h has at
+     * least fib(h + 3) - 1 nodes, so int sizes keep h below 46.
+     */
+    private static final int MAX_PATH = 48;
+
+    /**
+     * Set operations and the parallel traversals run the two halves of
+     * subtrees taller than this, about 2^12 nodes, in parallel.
+     */
+    public static final int PARALLEL_HEIGHT = 12;
+
     private AVLNode<T> root;
     private int size;
+    private int modCount;
 
     /**
      * A no-argument constructor that should initialize an empty AVL.
@@ -26,8 +58,14 @@ public class AVL<T extends Comparable<? super T>> {
     }
 
     /**
-     * Initializes the AVL tree with the data in the Collection. The data
-     * should be added in the same order it appears in the Collection.
+     * Initializes the AVL tree with the data in the Collection.
+     *
+     * Instead of adding the data one at a time, the data is sorted (skipped
+     * if it is already in order), duplicates are dropped keeping the first
+     * one in iteration order, like add would, and a perfectly balanced tree
+     * is built bottom-up in O(n) with heights and balance factors set
+     * directly. The tree holds the same data as adding in order would give,
+     * but its shape can differ.
      *
      * @param data the data to add to the tree
      * @throws IllegalArgumentException if data or any element in data is null
@@ -36,12 +74,66 @@ public class AVL<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        for (T newData: data) {
-            if (newData == null) {
+        Object[] sorted = sortedDistinct(data);
+        size = sorted.length;
+        root = build(sorted, 0, sorted.length - 1);
+    }
+
+    /**
+     * helper method that copies a Collection into a sorted array without
+     * duplicates. Checks for nulls and for data that is already sorted in
+     * the same pass, and only sorts when it is not. The sort is stable, so
+     * the first of several equal data is the one kept.
+     *
+     * @param data the data to sort
+     * @throws IllegalArgumentException if any element in data is null
+     * @return sorted array of distinct data
+     */
+    private Object[] sortedDistinct(Collection<T> data) {
+        Object[] array = data.toArray();
+        boolean strictlySorted = true;
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == null) {
                 throw new IllegalArgumentException("Data cannot be null");
             }
-            add(newData);
+            if (strictlySorted && i > 0
+                    && ((T) array[i - 1]).compareTo((T) array[i]) >= 0) {
+                strictlySorted = false;
+            }
+        }
+        if (strictlySorted) {
+            return array;
+        }
+        Arrays.sort(array);
+        int distinct = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (distinct == 0
+                    || ((T) array[distinct - 1]).compareTo((T) array[i]) != 0) {
+                array[distinct++] = array[i];
+            }
         }
+        return Arrays.copyOf(array, distinct);
+    }
+
+    /**
+     * helper method that builds a balanced subtree from a sorted range, the
+     * middle element becoming the root. Recurses only O(log n) deep.
+     *
+     * @param sorted sorted distinct data
+     * @param lo first index of the range
+     * @param hi last index of the range
+     * @return root of the subtree, or null for an empty range
+     */
+    private AVLNode<T> build(Object[] sorted, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        AVLNode<T> node = new AVLNode<T>((T) sorted[mid]);
+        node.setLeft(build(sorted, lo, mid - 1));
+        node.setRight(build(sorted, mid + 1, hi));
+        updateHeightAndBF(node);
+        return node;
     }
 
     /**
@@ -61,30 +153,72 @@ public class AVL<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        root = rAdd(data, root);
+        AVLNode<T>[] path = new AVLNode[MAX_PATH];
+        int depth = 0;
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = node.getData().compareTo(data);
+            if (cmp == 0) {
+                return;
+            }
+            path[depth++] = node;
+            node = (cmp > 0) ? node.getLeft() : node.getRight();
+        }
+        AVLNode<T> leaf = new AVLNode<T>(data);
+        ++size;
+        ++modCount;
+        if (depth == 0) {
+            root = leaf;
+            return;
+        }
+        AVLNode<T> parent = path[depth - 1];
+        if (parent.getData().compareTo(data) > 0) {
+            parent.setLeft(leaf);
+        } else {
+            parent.setRight(leaf);
+        }
+        rebalance(path, depth);
     }
 
     /**
-     * Recursive helper method for the add method
+     * helper method that walks a recorded path back up to the root, updating
+     * heights and balance factors and rotating where needed. Stops as soon
+     * as a node keeps its height without rotating, since nothing above it
+     * can change.
      *
-     * @param data the data to be added
-     * @param node current node being looked at
-     * @return current AVL node
+     * @param path nodes from the root down, path[0] being the root
+     * @param depth number of nodes on the path
      */
-    private AVLNode<T> rAdd(T data, AVLNode<T> node) {
-        if (node == null) {
-            ++size;
-            return new AVLNode<T>(data);
-        } else if (node.getData().compareTo(data) == 0) {
-            return node;
-        } else {
-            if (node.getData().compareTo(data) > 0) {
-                node.setLeft(rAdd(data, node.getLeft()));
-            } else {
-                node.setRight(rAdd(data, node.getRight()));
-            }
+    private void rebalance(AVLNode<T>[] path, int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            AVLNode<T> node = path[i];
+            int oldHeight = node.getHeight();
             updateHeightAndBF(node);
-            return rotate(node);
+            AVLNode<T> subtree = rotate(node);
+            if (subtree == node && node.getHeight() == oldHeight) {
+                return;
+            }
+            if (subtree != node) {
+                replaceChild((i == 0) ? null : path[i - 1], node, subtree);
+            }
+        }
+    }
+
+    /**
+     * helper method that puts a replacement where a child used to be
+     *
+     * @param parent parent of the child, or null if the child is the root
+     * @param child child being replaced
+     * @param replacement node taking its place, may be null
+     */
+    private void replaceChild(AVLNode<T> parent, AVLNode<T> child,
+                              AVLNode<T> replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.getLeft() == child) {
+            parent.setLeft(replacement);
+        } else {
+            parent.setRight(replacement);
         }
     }
 
@@ -148,6 +282,7 @@ public class AVL<T extends Comparable<? super T>> {
         leftChild.setRight(node);
         updateHeightAndBF(node);
         updateHeightAndBF(leftChild);
+        rotated();
         return leftChild;
     }
 
@@ -174,18 +309,26 @@ public class AVL<T extends Comparable<? super T>> {
         rightChild.setLeft(node);
         updateHeightAndBF(node);
         updateHeightAndBF(rightChild);
+        rotated();
         return rightChild;
     }
 
+    /**
+     * Called after every single rotation. Does nothing here; TreeBenchmark
+     * overrides it to count rotations without the tree keeping a counter.
+     */
+    void rotated() {
+    }
+
     /**
      * Removes the data from the tree. There are 3 cases to consider:
      *
      * 1: the data is a leaf. In this case, simply remove it.
      * 2: the data has one child. In this case, simply replace it with its
      * child.
-     * 3: the data has 2 children. Use the successor to replace the data,
-     * not the predecessor. As a reminder, rotations can occur after removing
-     * the successor node.
+     * 3: the data has 2 children. Use the predecessor to replace the data.
+     * As a reminder, rotations can occur after removing the predecessor
+     * node.
      *
      * Remember to recalculate heights going up the tree, rebalancing if
      * necessary.
@@ -200,65 +343,37 @@ public class AVL<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        AVLNode<T> tempNode = new AVLNode<T>(null);
-        root = rRemove(data, root, tempNode);
-        --size;
-        return tempNode.getData();
-    }
-
-    /**
-     * Recursive helper method for the remove method
-     *
-     * @throws java.util.NoSuchElementException if the data is not found
-     * @param data the data being searched for
-     * @param node current node
-     * @param storage stores the removed data
-     * @return current node
-     */
-    private AVLNode<T> rRemove(T data, AVLNode<T> node, AVLNode<T> storage) {
+        AVLNode<T>[] path = new AVLNode[MAX_PATH];
+        int depth = 0;
+        AVLNode<T> node = root;
+        int cmp;
+        while (node != null && (cmp = node.getData().compareTo(data)) != 0) {
+            path[depth++] = node;
+            node = (cmp > 0) ? node.getLeft() : node.getRight();
+        }
         if (node == null) {
             throw new java.util.NoSuchElementException("Data is not in"
                     + " the AVL tree");
         }
-        if (node.getData().compareTo(data) == 0) {
-            storage.setData(node.getData());
-            if (node.getLeft() == null && node.getRight() == null) {
-                return null;
-            } else if (node.getLeft() != null && node.getRight() == null) {
-                return node.getLeft();
-            } else if (node.getLeft() == null && node.getRight() != null) {
-                return node.getRight();
-            } else {
-                AVLNode<T> tempNode = new AVLNode<T>(null);
-                node.setLeft(findPredecessor(node.getLeft(), tempNode));
-                node.setData(tempNode.getData());
+        T removed = node.getData();
+        if (node.getLeft() != null && node.getRight() != null) {
+            path[depth++] = node;
+            AVLNode<T> predecessor = node.getLeft();
+            while (predecessor.getRight() != null) {
+                path[depth++] = predecessor;
+                predecessor = predecessor.getRight();
             }
+            node.setData(predecessor.getData());
+            replaceChild(path[depth - 1], predecessor, predecessor.getLeft());
         } else {
-            if (node.getData().compareTo(data) > 0) {
-                node.setLeft(rRemove(data, node.getLeft(), storage));
-            } else {
-                node.setRight(rRemove(data, node.getRight(), storage));
-            }
-        }
-        updateHeightAndBF(node);
-        return rotate(node);
-    }
-
-    /**
-     * helper method that finds the direct predecessor of a node.
-     *
-     * @param node node to find the predecessor of
-     * @param tempNode node storing predecessor node data
-     * @return removed data from the tree
-     */
-    private AVLNode<T> findPredecessor(AVLNode<T> node, AVLNode<T> tempNode) {
-        if (node.getRight() == null) {
-            tempNode.setData(node.getData());
-            return node.getLeft();
-        } else {
-            node.setRight(findPredecessor(node.getRight(), tempNode));
+            replaceChild((depth == 0) ? null : path[depth - 1], node,
+                    (node.getLeft() != null) ? node.getLeft()
+                            : node.getRight());
         }
-        return node;
+        --size;
+        ++modCount;
+        rebalance(path, depth);
+        return removed;
     }
 
     /**
@@ -279,29 +394,29 @@ public class AVL<T extends Comparable<? super T>> {
         if (size == 0) {
             throw new java.util.NoSuchElementException("Data was not found");
         }
-        return rGet(data, root);
+        AVLNode<T> node = find(data);
+        if (node == null) {
+            throw new java.util.NoSuchElementException("Data was not found");
+        }
+        return node.getData();
     }
 
     /**
-     * Recursive helper method for get
+     * helper method that finds the node holding data equal to the parameter
      *
-     * @throws java.util.NoSuchElementException if the data is not found
      * @param data the data being searched for
-     * @param node current node being looked at
-     * @return the data that was searched for
+     * @return the node, or null if the data is not in the tree
      */
-    private T rGet(T data, AVLNode<T> node) {
-        if (node == null) {
-            throw new java.util.NoSuchElementException("Data was not found");
-        } else if (node.getData().compareTo(data) == 0) {
-            return node.getData();
-        } else {
-            if (node.getData().compareTo(data) > 0) {
-                return rGet(data, node.getLeft());
-            } else {
-                return rGet(data, node.getRight());
+    private AVLNode<T> find(T data) {
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = node.getData().compareTo(data);
+            if (cmp == 0) {
+                return node;
             }
+            node = (cmp > 0) ? node.getLeft() : node.getRight();
         }
+        return null;
     }
 
     /**
@@ -317,29 +432,7 @@ public class AVL<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        return rContains(data, root);
-    }
-
-    /**
-     * Recursively goes through data structure each node at a time to find
-     * inputted data.
-     *
-     * @param data the data being searched for
-     * @param node node spot being looked at to check for data
-     * @return whether or not data is contained in current node
-     */
-    private boolean rContains(T data, AVLNode<T> node) {
-        if (node == null) {
-            return false;
-        } else if (node.getData().compareTo(data) == 0) {
-            return true;
-        } else {
-            if (node.getData().compareTo(data) > 0) {
-                return rContains(data, node.getLeft());
-            } else {
-                return rContains(data, node.getRight());
-            }
-        }
+        return find(data) != null;
     }
 
     /**
@@ -377,26 +470,90 @@ public class AVL<T extends Comparable<? super T>> {
      */
     public List<T> deepestBranches() {
         List<T> deep = new ArrayList<>();
-        rDeepestBranches(root, deep);
+        deepestBranches(root, deep);
         return deep;
     }
 
     /**
-     * recursive helper for deepestBranches method
+     * Parallel version of deepestBranches. Deep branches of subtrees taller
+     * than PARALLEL_HEIGHT are found by separate fork-join tasks and their
+     * lists joined in preorder.
      *
-     * @param node current node location
-     * @param deep list of the data on the deepest branches
+     * @return the list of data in branches of maximum depth in preorder
+     * traversal order
      */
-    private void rDeepestBranches(AVLNode<T> node, List<T> deep) {
-        if (node == null) {
-            return;
-        } else {
+    public List<T> parallelDeepestBranches() {
+        return new DeepestBranches<>(root).invoke();
+    }
+
+    /**
+     * Performs the action on every data in the tree, in parallel. Subtrees
+     * taller than PARALLEL_HEIGHT are split into fork-join tasks and the
+     * ones below are each walked by one task, so the action is called from
+     * several threads and in no particular order.
+     *
+     * @param action the action to perform on each data
+     * @throws IllegalArgumentException if action is null
+     */
+    public void parallelForEach(Consumer<? super T> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        parallelReduce(null, data -> {
+            action.accept(data);
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Maps every data in the tree and combines the results, in parallel,
+     * split into tasks like parallelForEach. Results are always combined in
+     * sorted order, so the combiner has to be associative but does not have
+     * to be commutative.
+     *
+     * @param identity result for no data, which combiner leaves unchanged
+     * @param mapper maps one data to a result
+     * @param combiner combines the results of two adjacent ranges, the
+     * smaller range first
+     * @param <R> result type
+     * @throws IllegalArgumentException if mapper or combiner is null
+     * @return the combined result of every data in the tree
+     */
+    public <R> R parallelReduce(R identity,
+                                Function<? super T, ? extends R> mapper,
+                                BinaryOperator<R> combiner) {
+        if (mapper == null || combiner == null) {
+            throw new IllegalArgumentException("Mapper and combiner cannot"
+                    + " be null");
+        }
+        return new Reduction<>(root, identity, mapper, combiner).invoke();
+    }
+
+    /**
+     * helper method that appends the data on the deepest branches of a
+     * subtree to a list, in preorder
+     *
+     * @param subtree root of the subtree, may be null
+     * @param deep list to append to
+     * @param <T> data type
+     */
+    private static <T extends Comparable<? super T>> void deepestBranches(
+            AVLNode<T> subtree, List<T> deep) {
+        Deque<AVLNode<T>> stack = new ArrayDeque<>();
+        if (subtree != null) {
+            stack.push(subtree);
+        }
+        while (!stack.isEmpty()) {
+            AVLNode<T> node = stack.pop();
             deep.add(node.getData());
-            if (node.getLeft() != null && node.getLeft().getHeight() == node.getHeight() - 1) {
-                rDeepestBranches(node.getLeft(), deep);
+            int childHeight = node.getHeight() - 1;
+            if (node.getRight() != null
+                    && node.getRight().getHeight() == childHeight) {
+                stack.push(node.getRight());
             }
-            if (node.getRight() != null && (node.getRight().getHeight() == node.getHeight() - 1)) {
-                rDeepestBranches(node.getRight(), deep);
+            if (node.getLeft() != null
+                    && node.getLeft().getHeight() == childHeight) {
+                stack.push(node.getLeft());
             }
         }
     }
@@ -424,6 +581,9 @@ public class AVL<T extends Comparable<? super T>> {
      * sortedInBetween(3, 8) returns [4, 5, 6, 7]
      * sortedInBetween(8, 8) returns []
      *
+     * Drains rangeIterator, which can be used directly to stream the range
+     * without building the list.
+     *
      * @param data1 the smaller data in the threshold
      * @param data2 the larger data in the threshold
      * @throws IllegalArgumentException if data1 or data2 are null
@@ -441,33 +601,412 @@ public class AVL<T extends Comparable<? super T>> {
             throw new IllegalArgumentException("Data1 cannot be greater than data2");
         }
         List<T> sorted = new ArrayList<>();
-        rSortedInBetween(data1, data2, root, sorted);
+        rangeIterator(data1, data2).forEachRemaining(sorted::add);
         return sorted;
     }
 
     /**
-     * recursive helper for the sortedInBetween method
-     * @param data1 smaller bound
-     * @param data2 larger bound
-     * @param node current node
-     * @param sorted list of the sorted data between data1 and data2
+     * Returns a cursor over the data that are > data1 and < data2, in sorted
+     * order. Nothing is visited until next is called, and only the branches
+     * inside the range are explored.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return an iterator over the data that are > data1 and < data2
+     */
+    public InOrderIterator rangeIterator(T data1, T data2) {
+        if (data1 == null) {
+            throw new IllegalArgumentException("Data1 cannot be null");
+        }
+        if (data2 == null) {
+            throw new IllegalArgumentException("Data2 cannot be null");
+        }
+        if (data1.compareTo(data2) > 0) {
+            throw new IllegalArgumentException("Data1 cannot be greater than"
+                    + " data2");
+        }
+        InOrderIterator iterator = new InOrderIterator(data2);
+        iterator.position(data1, false);
+        return iterator;
+    }
+
+    /**
+     * Returns an iterator over the tree in sorted order.
+     *
+     * @return an iterator starting at the smallest data
      */
-    private void rSortedInBetween(T data1, T data2, AVLNode<T> node, List<T> sorted) {
-        if (node == null) {
+    @Override
+    public InOrderIterator iterator() {
+        InOrderIterator iterator = new InOrderIterator(null);
+        iterator.position(null, true);
+        return iterator;
+    }
+
+    /**
+     * Returns an iterator over the tree in sorted order, starting at the
+     * smallest data >= the parameter. Same as calling seek on a new
+     * iterator.
+     *
+     * @param from the smallest data to visit
+     * @throws IllegalArgumentException if from is null
+     * @return an iterator starting at from or the data after it
+     */
+    public InOrderIterator iterator(T from) {
+        InOrderIterator iterator = iterator();
+        iterator.seek(from);
+        return iterator;
+    }
+
+    /**
+     * Returns a spliterator over the tree in sorted order. It is backed by
+     * iterator, so splits hand out batches of data rather than subtrees.
+     *
+     * @return a sized, sorted spliterator over the tree
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED
+                        | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns an immutable copy of the tree laid out in Eytzinger order,
+     * which answers contains and get faster than the tree when it will not
+     * change again. Later changes to the tree do not affect the copy.
+     *
+     * Runs in O(n).
+     *
+     * @return a read only sorted set of the data in the tree
+     */
+    public EytzingerSet<T> toEytzinger() {
+        Object[] sorted = new Object[size];
+        int i = 0;
+        for (T data : this) {
+            sorted[i++] = data;
+        }
+        return new EytzingerSet<>(sorted, size);
+    }
+
+    /**
+     * Moves all of other's data into this tree in O(log n), by joining the
+     * two trees with other's smallest data as the middle node instead of
+     * adding the data one at a time. Every data in this tree must be
+     * smaller than every data in other. other is left empty, since its
+     * nodes now belong to this tree.
+     *
+     * @param other the tree to append
+     * @throws IllegalArgumentException if other is null or this tree, or if
+     * this tree has data greater than or equal to some data in other
+     */
+    public void join(AVL<T> other) {
+        if (other == null || other == this) {
+            throw new IllegalArgumentException("Other cannot be null or this"
+                    + " tree");
+        }
+        if (root != null && other.root != null
+                && last(root).compareTo(first(other.root)) >= 0) {
+            throw new IllegalArgumentException("Data in this tree must be"
+                    + " smaller than data in other");
+        }
+        root = join2(root, other.root);
+        size += other.size;
+        ++modCount;
+        other.clear();
+    }
+
+    /**
+     * Splits off the data greater than key into a new tree; this tree keeps
+     * the data less than or equal to key.
+     *
+     * Reshaping the two trees takes O(log n). Since nodes do not store
+     * subtree sizes, the sizes of the two trees are found by counting both
+     * in lockstep until the smaller one is done, which adds
+     * O(size of the smaller tree).
+     *
+     * @param key data to split at
+     * @throws IllegalArgumentException if key is null
+     * @return a new tree with the data greater than key
+     */
+    public AVL<T> split(T key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Split<T> parts = split(root, key);
+        AVL<T> greater = new AVL<>();
+        greater.root = parts.right;
+        root = (parts.middle == null) ? parts.left
+                : join(parts.left, parts.middle, null);
+        int total = size;
+        size = countSmaller(root, greater.root, total);
+        greater.size = total - size;
+        ++modCount;
+        return greater;
+    }
+
+    /**
+     * Adds every data of other that is not already in this tree. When both
+     * trees have equal data, this tree's is kept.
+     *
+     * Takes O(m log(n / m + 1)) work for trees of sizes m <= n, by splitting
+     * and joining subtrees instead of adding one data at a time. Once the
+     * trees are taller than PARALLEL_HEIGHT the two halves are processed in
+     * parallel on the common fork-join pool. other is left empty, since its
+     * nodes are moved into or dropped from this tree.
+     *
+     * @param other the tree to merge in
+     * @throws IllegalArgumentException if other is null
+     */
+    public void union(AVL<T> other) {
+        setOperation(SetOperation.UNION, other);
+    }
+
+    /**
+     * Removes every data that is not also in other. Same costs as union, and
+     * other is left empty.
+     *
+     * @param other the tree to intersect with
+     * @throws IllegalArgumentException if other is null
+     */
+    public void intersection(AVL<T> other) {
+        setOperation(SetOperation.INTERSECTION, other);
+    }
+
+    /**
+     * Removes every data that is also in other. Same costs as union, and
+     * other is left empty.
+     *
+     * @param other the tree whose data should be removed
+     * @throws IllegalArgumentException if other is null
+     */
+    public void difference(AVL<T> other) {
+        setOperation(SetOperation.DIFFERENCE, other);
+    }
+
+    /**
+     * helper method that runs a set operation against another tree and
+     * fixes up both trees' sizes
+     *
+     * @param operation UNION, INTERSECTION or DIFFERENCE
+     * @param other the other tree
+     * @throws IllegalArgumentException if other is null
+     */
+    private void setOperation(int operation, AVL<T> other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Other cannot be null");
+        }
+        if (other == this) {
+            if (operation == SetOperation.DIFFERENCE) {
+                clear();
+            }
             return;
         }
-        if (node.getData().compareTo(data1) > 0 && node.getData().compareTo(data2) < 0 && node.getLeft() == null) {
-            sorted.add(node.getData());
+        SetOperation task = new SetOperation(operation, root, other.root);
+        root = task.invoke();
+        if (operation == SetOperation.UNION) {
+            size += other.size - task.common;
+        } else if (operation == SetOperation.INTERSECTION) {
+            size = task.common;
+        } else {
+            size -= task.common;
+        }
+        ++modCount;
+        other.clear();
+    }
+
+    /**
+     * helper method that joins two subtrees around a middle node, where
+     * everything in left is smaller than the node's data and everything in
+     * right larger. Descends the taller side to a subtree of about the same
+     * height as the shorter one, hangs the node there and rebalances on the
+     * way back up, so it takes O(height difference + 1).
+     *
+     * @param left subtree of smaller data, may be null
+     * @param node middle node, whose children are replaced
+     * @param right subtree of larger data, may be null
+     * @return root of the joined tree
+     */
+    private AVLNode<T> join(AVLNode<T> left, AVLNode<T> node,
+                            AVLNode<T> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            left.setRight(join(left.getRight(), node, right));
+            updateHeightAndBF(left);
+            return rotate(left);
+        }
+        if (rightHeight > leftHeight + 1) {
+            right.setLeft(join(left, node, right.getLeft()));
+            updateHeightAndBF(right);
+            return rotate(right);
+        }
+        node.setLeft(left);
+        node.setRight(right);
+        updateHeightAndBF(node);
+        return node;
+    }
+
+    /**
+     * helper method that joins two subtrees without a middle node, by
+     * taking the largest node out of left to use as one
+     *
+     * @param left subtree of smaller data, may be null
+     * @param right subtree of larger data, may be null
+     * @return root of the joined tree
+     */
+    private AVLNode<T> join2(AVLNode<T> left, AVLNode<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Split<T> parts = removeLast(left);
+        return join(parts.left, parts.middle, right);
+    }
+
+    /**
+     * helper method that unlinks the largest node of a subtree, rebalancing
+     * on the way back up like remove does
+     *
+     * @param node root of a non-empty subtree
+     * @return the rest of the subtree in left and the unlinked node in
+     * middle
+     */
+    private Split<T> removeLast(AVLNode<T> node) {
+        if (node.getRight() == null) {
+            Split<T> parts = new Split<>();
+            parts.left = node.getLeft();
+            parts.middle = node;
+            return parts;
+        }
+        Split<T> parts = removeLast(node.getRight());
+        node.setRight(parts.left);
+        updateHeightAndBF(node);
+        parts.left = rotate(node);
+        return parts;
+    }
+
+    /**
+     * helper method that splits a subtree into the data smaller than key,
+     * the node equal to key if there is one, and the data larger than key.
+     * Follows the search path for key and joins the pieces hanging off it,
+     * in O(log n).
+     *
+     * @param node root of the subtree, may be null
+     * @param key data to split at
+     * @return the three parts
+     */
+    private Split<T> split(AVLNode<T> node, T key) {
+        if (node == null) {
+            return new Split<>();
+        }
+        AVLNode<T> left = node.getLeft();
+        AVLNode<T> right = node.getRight();
+        int cmp = key.compareTo(node.getData());
+        if (cmp == 0) {
+            Split<T> parts = new Split<>();
+            parts.left = left;
+            parts.middle = node;
+            parts.right = right;
+            return parts;
+        }
+        if (cmp < 0) {
+            Split<T> parts = split(left, key);
+            parts.right = join(parts.right, node, right);
+            return parts;
+        }
+        Split<T> parts = split(right, key);
+        parts.left = join(left, node, parts.left);
+        return parts;
+    }
+
+    /**
+     * helper method that counts the nodes of two subtrees one node each at a
+     * time, stopping when the smaller one is done
+     *
+     * @param first first subtree
+     * @param second second subtree
+     * @param total number of nodes in both
+     * @return number of nodes in first
+     */
+    private int countSmaller(AVLNode<T> first, AVLNode<T> second,
+                             int total) {
+        Deque<AVLNode<T>> firstStack = new ArrayDeque<>();
+        Deque<AVLNode<T>> secondStack = new ArrayDeque<>();
+        if (first != null) {
+            firstStack.push(first);
+        }
+        if (second != null) {
+            secondStack.push(second);
         }
-        if (node.getData().compareTo(data1) > 0 || node.getData().compareTo(data2) == 0) {
-            rSortedInBetween(data1, data2, node.getLeft(), sorted);
+        int firstCount = 0;
+        int secondCount = 0;
+        while (true) {
+            if (firstStack.isEmpty()) {
+                return firstCount;
+            }
+            if (secondStack.isEmpty()) {
+                return total - secondCount;
+            }
+            firstCount += visit(firstStack);
+            secondCount += visit(secondStack);
+        }
+    }
+
+    /**
+     * helper method that pops a node and pushes its children
+     *
+     * @param stack non-empty stack of nodes to visit
+     * @return 1, the number of nodes visited
+     */
+    private int visit(Deque<AVLNode<T>> stack) {
+        AVLNode<T> node = stack.pop();
+        if (node.getLeft() != null) {
+            stack.push(node.getLeft());
         }
-        if (sorted.size() != 0 && node.getData().compareTo(data1) > 0 && node.getData().compareTo(data2) < 0 && node.getData().compareTo(sorted.get(sorted.size() - 1)) > 0) {
-            sorted.add(node.getData());
+        if (node.getRight() != null) {
+            stack.push(node.getRight());
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the height of a possibly null node.
+     *
+     * @param node the node
+     * @return its height, -1 for null
+     */
+    private static int height(AVLNode<?> node) {
+        return (node == null) ? -1 : node.getHeight();
+    }
+
+    /**
+     * Returns the smallest data of a non-empty subtree.
+     *
+     * @param node root of the subtree
+     * @return the smallest data
+     */
+    private T first(AVLNode<T> node) {
+        while (node.getLeft() != null) {
+            node = node.getLeft();
         }
-        if (node.getData().compareTo(data2) <= 0 || node.getData().compareTo(data1) == 0) {
-            rSortedInBetween(data1, data2, node.getRight(), sorted);
+        return node.getData();
+    }
+
+    /**
+     * Returns the largest data of a non-empty subtree.
+     *
+     * @param node root of the subtree
+     * @return the largest data
+     */
+    private T last(AVLNode<T> node) {
+        while (node.getRight() != null) {
+            node = node.getRight();
         }
+        return node.getData();
     }
 
     /**
@@ -476,6 +1015,7 @@ public class AVL<T extends Comparable<? super T>> {
     public void clear() {
         root = null;
         size = 0;
+        ++modCount;
     }
 
     /**
@@ -518,4 +1058,316 @@ public class AVL<T extends Comparable<? super T>> {
         // DO NOT MODIFY THIS METHOD!
         return root;
     }
+
+    /**
+     * The pieces of a split: the subtree of smaller data, the node equal to
+     * the key if there was one, and the subtree of larger data.
+     *
+     * @param <T> data type
+     */
+    private static final class Split<T extends Comparable<? super T>> {
+        private AVLNode<T> left;
+        private AVLNode<T> middle;
+        private AVLNode<T> right;
+    }
+
+    /**
+     * One step of union, intersection or difference: the shorter of the two
+     * subtrees is exposed at its root, the taller one is split by that
+     * root's data, the two halves are combined recursively, and a middle
+     * node is joined back in if the operation keeps its data. Splitting the
+     * taller tree is what keeps merging a small tree into a large one
+     * cheap. Where both trees have the data, this tree's node is used.
+     */
+    private final class SetOperation extends RecursiveTask<AVLNode<T>> {
+        private static final long serialVersionUID = 1L;
+        private static final int UNION = 0;
+        private static final int INTERSECTION = 1;
+        private static final int DIFFERENCE = 2;
+        private final int operation;
+        private final AVLNode<T> mine;
+        private final AVLNode<T> theirs;
+        private int common;
+
+        /**
+         * Creates the step for two subtrees.
+         *
+         * @param operation UNION, INTERSECTION or DIFFERENCE
+         * @param mine subtree of this tree, may be null
+         * @param theirs subtree of the other tree, may be null
+         */
+        private SetOperation(int operation, AVLNode<T> mine,
+                             AVLNode<T> theirs) {
+            this.operation = operation;
+            this.mine = mine;
+            this.theirs = theirs;
+        }
+
+        @Override
+        protected AVLNode<T> compute() {
+            if (mine == null) {
+                return (operation == UNION) ? theirs : null;
+            }
+            if (theirs == null) {
+                return (operation == INTERSECTION) ? null : mine;
+            }
+            boolean exposeMine = height(mine) <= height(theirs);
+            AVLNode<T> exposed = exposeMine ? mine : theirs;
+            AVLNode<T> left = exposed.getLeft();
+            AVLNode<T> right = exposed.getRight();
+            Split<T> parts = split(exposeMine ? theirs : mine,
+                    exposed.getData());
+            SetOperation leftStep = exposeMine
+                    ? new SetOperation(operation, left, parts.left)
+                    : new SetOperation(operation, parts.left, left);
+            SetOperation rightStep = exposeMine
+                    ? new SetOperation(operation, right, parts.right)
+                    : new SetOperation(operation, parts.right, right);
+            AVLNode<T> leftResult;
+            AVLNode<T> rightResult;
+            if (Math.max(height(mine), height(theirs)) > PARALLEL_HEIGHT) {
+                leftStep.fork();
+                rightResult = rightStep.compute();
+                leftResult = leftStep.join();
+            } else {
+                leftResult = leftStep.compute();
+                rightResult = rightStep.compute();
+            }
+            boolean found = parts.middle != null;
+            common = leftStep.common + rightStep.common + (found ? 1 : 0);
+            AVLNode<T> mineNode = exposeMine ? exposed : parts.middle;
+            AVLNode<T> middle;
+            if (operation == UNION) {
+                middle = (mineNode != null) ? mineNode : exposed;
+            } else if (operation == INTERSECTION) {
+                middle = found ? mineNode : null;
+            } else {
+                middle = (exposeMine && !found) ? mineNode : null;
+            }
+            return (middle != null)
+                    ? AVL.this.join(leftResult, middle, rightResult)
+                    : join2(leftResult, rightResult);
+        }
+    }
+
+    /**
+     * In-order iterator that keeps the nodes it still has to return to on
+     * an explicit stack: the path of nodes it went left from, which is never
+     * longer than the height of the tree.
+     */
+    public final class InOrderIterator implements Iterator<T> {
+        private final AVLNode<T>[] stack = new AVLNode[MAX_PATH];
+        private final T upper;
+        private int depth;
+        private int expected = modCount;
+        private T last;
+
+        /**
+         * Creates an iterator with no position yet.
+         *
+         * @param upper data at which to stop, exclusive, or null to run to
+         * the end of the tree
+         */
+        private InOrderIterator(T upper) {
+            this.upper = upper;
+        }
+
+        /**
+         * Moves the iterator so that next returns the smallest data >= key,
+         * in O(log n). Seeking backwards is allowed. A range cursor still
+         * stops at its upper bound.
+         *
+         * @param key data to seek to
+         * @throws IllegalArgumentException if key is null
+         * @throws java.util.ConcurrentModificationException if the tree was
+         * changed other than through this iterator
+         */
+        public void seek(T key) {
+            if (key == null) {
+                throw new IllegalArgumentException("Key cannot be null");
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            position(key, true);
+            last = null;
+        }
+
+        /**
+         * Rebuilds the stack for the first data after key: every node on
+         * the search path for key that is greater than it, or equal to it
+         * if inclusive.
+         *
+         * @param key data to position at, or null for the smallest data
+         * @param inclusive whether data equal to key is visited
+         */
+        private void position(T key, boolean inclusive) {
+            depth = 0;
+            AVLNode<T> node = root;
+            while (node != null) {
+                int cmp = (key == null) ? 1 : node.getData().compareTo(key);
+                if (cmp > 0 || (cmp == 0 && inclusive)) {
+                    stack[depth++] = node;
+                    node = node.getLeft();
+                } else {
+                    node = node.getRight();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0 && (upper == null
+                    || stack[depth - 1].getData().compareTo(upper) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more data");
+            }
+            AVLNode<T> node = stack[--depth];
+            for (AVLNode<T> child = node.getRight(); child != null;
+                    child = child.getLeft()) {
+                stack[depth++] = child;
+            }
+            last = node.getData();
+            return last;
+        }
+
+        /**
+         * Removes the data last returned by next from the tree. The removal
+         * may rotate the tree, so the iterator seeks back to the data after
+         * it, in O(log n).
+         *
+         * @throws IllegalStateException if next has not been called since
+         * the last remove or seek
+         * @throws java.util.ConcurrentModificationException if the tree was
+         * changed other than through this iterator
+         */
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("next has not been called");
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            AVL.this.remove(last);
+            position(last, false);
+            expected = modCount;
+            last = null;
+        }
+    }
+
+    /**
+     * Fork-join step of parallelReduce: reduces a subtree, forking its
+     * left subtree while it is taller than PARALLEL_HEIGHT.
+     *
+     * @param <T> data type
+     * @param <R> result type
+     */
+    private static final class Reduction<T extends Comparable<? super T>, R>
+            extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+        private final AVLNode<T> node;
+        private final R identity;
+        private final Function<? super T, ? extends R> mapper;
+        private final BinaryOperator<R> combiner;
+
+        /**
+         * Creates the step for a subtree.
+         *
+         * @param node root of the subtree, may be null
+         * @param identity result for no data
+         * @param mapper maps one data to a result
+         * @param combiner combines two adjacent results
+         */
+        private Reduction(AVLNode<T> node, R identity,
+                          Function<? super T, ? extends R> mapper,
+                          BinaryOperator<R> combiner) {
+            this.node = node;
+            this.identity = identity;
+            this.mapper = mapper;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (height(node) <= PARALLEL_HEIGHT) {
+                R result = identity;
+                Deque<AVLNode<T>> stack = new ArrayDeque<>();
+                AVLNode<T> curr = node;
+                while (curr != null || !stack.isEmpty()) {
+                    while (curr != null) {
+                        stack.push(curr);
+                        curr = curr.getLeft();
+                    }
+                    curr = stack.pop();
+                    result = combiner.apply(result,
+                            mapper.apply(curr.getData()));
+                    curr = curr.getRight();
+                }
+                return result;
+            }
+            Reduction<T, R> left = new Reduction<>(node.getLeft(), identity,
+                    mapper, combiner);
+            left.fork();
+            R right = new Reduction<>(node.getRight(), identity, mapper,
+                    combiner).compute();
+            return combiner.apply(combiner.apply(left.join(),
+                    mapper.apply(node.getData())), right);
+        }
+    }
+
+    /**
+     * Fork-join step of parallelDeepestBranches: lists the deepest branches
+     * of a subtree in preorder, forking the left one when both children are
+     * on deepest branches.
+     *
+     * @param <T> data type
+     */
+    private static final class DeepestBranches<T extends Comparable<? super T>>
+            extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+        private final AVLNode<T> node;
+
+        /**
+         * Creates the step for a subtree.
+         *
+         * @param node root of the subtree, may be null
+         */
+        private DeepestBranches(AVLNode<T> node) {
+            this.node = node;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<T> deep = new ArrayList<>();
+            if (height(node) <= PARALLEL_HEIGHT) {
+                deepestBranches(node, deep);
+                return deep;
+            }
+            deep.add(node.getData());
+            int childHeight = node.getHeight() - 1;
+            boolean leftDeep = height(node.getLeft()) == childHeight;
+            boolean rightDeep = height(node.getRight()) == childHeight;
+            DeepestBranches<T> left = new DeepestBranches<>(node.getLeft());
+            if (leftDeep && rightDeep) {
+                left.fork();
+                List<T> right = new DeepestBranches<>(node.getRight())
+                        .compute();
+                deep.addAll(left.join());
+                deep.addAll(right);
+            } else if (leftDeep) {
+                deep.addAll(left.compute());
+            } else {
+                deep.addAll(new DeepestBranches<>(node.getRight()).compute());
+            }
+            return deep;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,511 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * An AVL tree whose nodes also store an aggregate of their subtree, so that
+ * the aggregate of any range of data is found in O(log n) instead of by
+ * walking the range.
+ *
+ * The aggregate is a monoid given to the constructor: an identity, a
+ * function lifting one data to an aggregate, and an associative combine.
+ * Sums, counts, minimums and maximums all fit. The combine does not have to
+ * be commutative, since aggregates are always combined in sorted order.
+ * Aggregates are kept up to date by add, remove and every rotation, the
+ * same way heights are; like OrderStatisticAVL, the walk back up after an
+ * add or remove always reaches the root.
+ *
+ * @param <T> data type
+ * @param <A> aggregate type
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class AugmentedAVL<T extends Comparable<? super T>, A> {
+
+    private static final int MAX_PATH = 48;
+    private final A identity;
+    private final Function<? super T, ? extends A> lift;
+    private final BinaryOperator<A> combine;
+    private Node<T, A> root;
+    private int size;
+
+    /**
+     * Creates an empty tree with the given aggregate monoid.
+     *
+     * @param identity aggregate of no data, which combine leaves unchanged
+     * @param lift turns one data into its aggregate
+     * @param combine combines the aggregates of two adjacent ranges, the
+     * smaller range first
+     * @throws IllegalArgumentException if lift or combine is null
+     */
+    public AugmentedAVL(A identity, Function<? super T, ? extends A> lift,
+                        BinaryOperator<A> combine) {
+        if (lift == null || combine == null) {
+            throw new IllegalArgumentException("Lift and combine cannot be"
+                    + " null");
+        }
+        this.identity = identity;
+        this.lift = lift;
+        this.combine = combine;
+    }
+
+    /**
+     * Creates an empty tree whose aggregate is the number of data.
+     *
+     * @param <T> data type
+     * @return the tree
+     */
+    public static <T extends Comparable<? super T>> AugmentedAVL<T, Integer>
+            counting() {
+        return new AugmentedAVL<>(0, data -> 1, Integer::sum);
+    }
+
+    /**
+     * Creates an empty tree whose aggregate is the smallest data, or null
+     * for no data.
+     *
+     * @param <T> data type
+     * @return the tree
+     */
+    public static <T extends Comparable<? super T>> AugmentedAVL<T, T>
+            minimum() {
+        return new AugmentedAVL<>(null, data -> data,
+                BinaryOperator.minBy(Comparator.nullsLast(
+                        Comparator.<T>naturalOrder())));
+    }
+
+    /**
+     * Creates an empty tree whose aggregate is the largest data, or null
+     * for no data.
+     *
+     * @param <T> data type
+     * @return the tree
+     */
+    public static <T extends Comparable<? super T>> AugmentedAVL<T, T>
+            maximum() {
+        return new AugmentedAVL<>(null, data -> data,
+                BinaryOperator.maxBy(Comparator.nullsFirst(
+                        Comparator.<T>naturalOrder())));
+    }
+
+    /**
+     * Adds the data to the tree. Duplicates are ignored.
+     *
+     * @param data the data to be added
+     * @throws IllegalArgumentException if the data is null
+     */
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T, A>[] path = new Node[MAX_PATH];
+        int depth = 0;
+        Node<T, A> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return;
+            }
+            path[depth++] = node;
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        Node<T, A> leaf = new Node<>(data, lift.apply(data));
+        ++size;
+        if (depth == 0) {
+            root = leaf;
+            return;
+        }
+        Node<T, A> parent = path[depth - 1];
+        if (parent.data.compareTo(data) > 0) {
+            parent.left = leaf;
+        } else {
+            parent.right = leaf;
+        }
+        rebalance(path, depth);
+    }
+
+    /**
+     * Removes the data from the tree, replacing a node with two children by
+     * its predecessor like AVL does.
+     *
+     * @param data the data to remove from the tree
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data that was stored in the tree
+     */
+    public T remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T, A>[] path = new Node[MAX_PATH];
+        int depth = 0;
+        Node<T, A> node = root;
+        int cmp;
+        while (node != null && (cmp = node.data.compareTo(data)) != 0) {
+            path[depth++] = node;
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        if (node == null) {
+            throw new NoSuchElementException("Data is not in the tree");
+        }
+        T removed = node.data;
+        if (node.left != null && node.right != null) {
+            path[depth++] = node;
+            Node<T, A> predecessor = node.left;
+            while (predecessor.right != null) {
+                path[depth++] = predecessor;
+                predecessor = predecessor.right;
+            }
+            node.data = predecessor.data;
+            replaceChild(path[depth - 1], predecessor, predecessor.left);
+        } else {
+            replaceChild((depth == 0) ? null : path[depth - 1], node,
+                    (node.left != null) ? node.left : node.right);
+        }
+        --size;
+        rebalance(path, depth);
+        return removed;
+    }
+
+    /**
+     * Returns the data in the tree equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data stored in the tree
+     */
+    public T get(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T, A> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return node.data;
+            }
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        throw new NoSuchElementException("Data was not found");
+    }
+
+    /**
+     * Returns whether data equal to the parameter is in the tree.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return whether the data is in the tree
+     */
+    public boolean contains(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T, A> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return true;
+            }
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a sorted list of the data that are > data1 and < data2, like
+     * AVL.sortedInBetween.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return a sorted list of data that is > data1 and < data2
+     */
+    public List<T> sortedInBetween(T data1, T data2) {
+        checkRange(data1, data2);
+        List<T> sorted = new ArrayList<>();
+        Node<T, A>[] stack = new Node[MAX_PATH];
+        int depth = 0;
+        Node<T, A> node = root;
+        while (true) {
+            while (node != null) {
+                if (node.data.compareTo(data1) > 0) {
+                    stack[depth++] = node;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            if (depth == 0 || stack[depth - 1].data.compareTo(data2) >= 0) {
+                return sorted;
+            }
+            node = stack[--depth];
+            sorted.add(node.data);
+            node = node.right;
+        }
+    }
+
+    /**
+     * Returns the aggregate of the data that are > data1 and < data2, the
+     * same data sortedInBetween returns, without visiting them.
+     *
+     * The search paths for data1 and data2 run together down to the first
+     * node inside the range and then split. Below it, the path to data1
+     * contributes every node greater than data1 together with its right
+     * subtree's stored aggregate, and the path to data2 likewise on the
+     * left, so only O(log n) aggregates are combined.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return aggregate of the data that is > data1 and < data2, or the
+     * identity if there is none
+     */
+    public A rangeAggregate(T data1, T data2) {
+        checkRange(data1, data2);
+        Node<T, A> split = root;
+        while (split != null) {
+            if (split.data.compareTo(data1) <= 0) {
+                split = split.right;
+            } else if (split.data.compareTo(data2) >= 0) {
+                split = split.left;
+            } else {
+                break;
+            }
+        }
+        if (split == null) {
+            return identity;
+        }
+        A above = identity;
+        for (Node<T, A> node = split.left; node != null;) {
+            if (node.data.compareTo(data1) > 0) {
+                above = combine.apply(combine.apply(lift.apply(node.data),
+                        aggregate(node.right)), above);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        A below = identity;
+        for (Node<T, A> node = split.right; node != null;) {
+            if (node.data.compareTo(data2) < 0) {
+                below = combine.apply(below, combine.apply(
+                        aggregate(node.left), lift.apply(node.data)));
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return combine.apply(combine.apply(above, lift.apply(split.data)),
+                below);
+    }
+
+    /**
+     * Returns the aggregate of all the data in the tree. O(1), read from the
+     * root.
+     *
+     * @return aggregate of the tree, or the identity if it is empty
+     */
+    public A aggregate() {
+        return aggregate(root);
+    }
+
+    /**
+     * Clears the tree.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Returns the number of data in the tree.
+     *
+     * @return number of data in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * helper method that checks the bounds of a range
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     */
+    private void checkRange(T data1, T data2) {
+        if (data1 == null) {
+            throw new IllegalArgumentException("Data1 cannot be null");
+        }
+        if (data2 == null) {
+            throw new IllegalArgumentException("Data2 cannot be null");
+        }
+        if (data1.compareTo(data2) > 0) {
+            throw new IllegalArgumentException("Data1 cannot be greater than"
+                    + " data2");
+        }
+    }
+
+    /**
+     * helper method that walks a recorded path back up to the root,
+     * updating heights and aggregates and rotating where needed
+     *
+     * @param path nodes from the root down, path[0] being the root
+     * @param depth number of nodes on the path
+     */
+    private void rebalance(Node<T, A>[] path, int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<T, A> node = path[i];
+            update(node);
+            Node<T, A> subtree = rotate(node);
+            if (subtree != node) {
+                replaceChild((i == 0) ? null : path[i - 1], node, subtree);
+            }
+        }
+    }
+
+    /**
+     * helper method that puts a replacement where a child used to be
+     *
+     * @param parent parent of the child, or null if the child is the root
+     * @param child child being replaced
+     * @param replacement node taking its place, may be null
+     */
+    private void replaceChild(Node<T, A> parent, Node<T, A> child,
+                              Node<T, A> replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    /**
+     * Updates the height and aggregate of a node from its children.
+     *
+     * @param node node to be updated
+     */
+    private void update(Node<T, A> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.aggregate = combine.apply(combine.apply(aggregate(node.left),
+                lift.apply(node.data)), aggregate(node.right));
+    }
+
+    /**
+     * Rotates the subtree rooted at a node if it is out of balance.
+     *
+     * @param node root of the subtree
+     * @return new root of the subtree
+     */
+    private Node<T, A> rotate(Node<T, A> node) {
+        int bf = height(node.left) - height(node.right);
+        if (bf > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = leftRotation(node.left);
+            }
+            return rightRotation(node);
+        } else if (bf < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rightRotation(node.right);
+            }
+            return leftRotation(node);
+        }
+        return node;
+    }
+
+    /**
+     * right rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private Node<T, A> rightRotation(Node<T, A> node) {
+        Node<T, A> leftChild = node.left;
+        node.left = leftChild.right;
+        leftChild.right = node;
+        update(node);
+        update(leftChild);
+        return leftChild;
+    }
+
+    /**
+     * left rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private Node<T, A> leftRotation(Node<T, A> node) {
+        Node<T, A> rightChild = node.right;
+        node.right = rightChild.left;
+        rightChild.left = node;
+        update(node);
+        update(rightChild);
+        return rightChild;
+    }
+
+    /**
+     * Returns the aggregate of a possibly null node.
+     *
+     * @param node the node
+     * @return its aggregate, the identity for null
+     */
+    private A aggregate(Node<T, A> node) {
+        return (node == null) ? identity : node.aggregate;
+    }
+
+    /**
+     * Returns the height of a possibly null node.
+     *
+     * @param node the node
+     * @return its height, -1 for null
+     */
+    private static int height(Node<?, ?> node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    /**
+     * A tree node that stores the aggregate of its subtree.
+     *
+     * @param <T> data type
+     * @param <A> aggregate type
+     */
+    private static final class Node<T, A> {
+        private T data;
+        private Node<T, A> left;
+        private Node<T, A> right;
+        private int height;
+        private A aggregate;
+
+        /**
+         * Creates a leaf.
+         *
+         * @param data data of the node
+         * @param aggregate the data's lifted aggregate
+         */
+        private Node(T data, A aggregate) {
+            this.data = data;
+            this.aggregate = aggregate;
+        }
+    }
+}
@@ -0,0 +1,613 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An in-memory B+ tree with the same API as AVL.
+ *
+ * With millions of keys an AVL lookup visits around 20 separate nodes and
+ * misses the cache on most of them. Here every node holds up to MAX_KEYS
+ * keys in one array, so a lookup visits only about log base 17 of n nodes
+ * (5 for a million keys) and binary searches each array. With compressed
+ * references 32 keys fill two 64 byte cache lines. All data is kept in the
+ * leaves, in order, and each leaf links to the next one, so a range scan
+ * finds its first key and then walks the leaves without going back up the
+ * tree.
+ *
+ * Inner nodes only route: the separator keys[i] is greater than every key
+ * under children[i] and no more than any key under children[i + 1]. Every
+ * node but the root holds at least MIN_KEYS keys, and all leaves are at the
+ * same depth.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class BPlusTree<T extends Comparable<? super T>> implements Iterable<T> {
+
+    private static final int MAX_KEYS = 32;
+    private static final int MIN_KEYS = MAX_KEYS / 2;
+    private static final int MAX_PATH = 16;
+    private Node<T> root;
+    private int size;
+    private int modCount;
+
+    /**
+     * Creates an empty tree.
+     */
+    public BPlusTree() {
+    }
+
+    /**
+     * Creates a tree with the data in the Collection, added in iteration
+     * order.
+     *
+     * @param data the data to add to the tree
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public BPlusTree(Collection<T> data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        for (T newData : data) {
+            if (newData == null) {
+                throw new IllegalArgumentException("Data cannot be null");
+            }
+            add(newData);
+        }
+    }
+
+    /**
+     * Adds the data to the tree. Duplicates are ignored.
+     *
+     * A full leaf is split in half and the first key of the new right half
+     * is added to the parent, which may split in turn. The tree only grows
+     * in height when the root splits.
+     *
+     * @param data the data to be added
+     * @throws IllegalArgumentException if the data is null
+     */
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        if (root == null) {
+            root = new Node<>(true);
+        }
+        Node<T>[] path = new Node[MAX_PATH];
+        int[] index = new int[MAX_PATH];
+        int depth = 0;
+        Node<T> node = root;
+        while (node.children != null) {
+            int i = upperBound(node, data);
+            path[depth] = node;
+            index[depth++] = i;
+            node = node.children[i];
+        }
+        int i = lowerBound(node, data);
+        if (i < node.count && node.key(i).compareTo(data) == 0) {
+            return;
+        }
+        insert(node, i, data, null);
+        ++size;
+        ++modCount;
+        if (node.count <= MAX_KEYS) {
+            return;
+        }
+        Node<T> right = splitLeaf(node);
+        T separator = right.key(0);
+        while (depth > 0) {
+            Node<T> parent = path[--depth];
+            insert(parent, index[depth], separator, right);
+            if (parent.count <= MAX_KEYS) {
+                return;
+            }
+            separator = parent.key(parent.count / 2);
+            right = splitInner(parent);
+        }
+        Node<T> newRoot = new Node<>(false);
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = right;
+        newRoot.count = 1;
+        root = newRoot;
+    }
+
+    /**
+     * Removes the data from the tree.
+     *
+     * A node left with fewer than MIN_KEYS keys borrows one from a sibling
+     * that can spare it, or else is merged with a sibling, which takes a
+     * key away from the parent. The tree only shrinks in height when the
+     * root is left with a single child.
+     *
+     * @param data the data to remove from the tree
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data that was stored in the tree
+     */
+    public T remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        if (root == null) {
+            throw new NoSuchElementException("Data is not in the tree");
+        }
+        Node<T>[] path = new Node[MAX_PATH];
+        int[] index = new int[MAX_PATH];
+        int depth = 0;
+        Node<T> node = root;
+        while (node.children != null) {
+            int i = upperBound(node, data);
+            path[depth] = node;
+            index[depth++] = i;
+            node = node.children[i];
+        }
+        int i = lowerBound(node, data);
+        if (i == node.count || node.key(i).compareTo(data) != 0) {
+            throw new NoSuchElementException("Data is not in the tree");
+        }
+        T removed = node.key(i);
+        delete(node, i, i);
+        --size;
+        ++modCount;
+        while (depth > 0 && node.count < MIN_KEYS) {
+            Node<T> parent = path[--depth];
+            int child = index[depth];
+            Node<T> left = (child > 0) ? parent.children[child - 1] : null;
+            Node<T> right = (child < parent.count)
+                    ? parent.children[child + 1] : null;
+            if (left != null && left.count > MIN_KEYS) {
+                borrowFromLeft(parent, child, left, node);
+            } else if (right != null && right.count > MIN_KEYS) {
+                borrowFromRight(parent, child, node, right);
+            } else if (left != null) {
+                merge(parent, child - 1, left, node);
+            } else {
+                merge(parent, child, node, right);
+            }
+            node = parent;
+        }
+        if (root.count == 0) {
+            root = (root.children == null) ? null : root.children[0];
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the data in the tree equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data stored in the tree
+     */
+    public T get(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T> leaf = findLeaf(data);
+        if (leaf != null) {
+            int i = lowerBound(leaf, data);
+            if (i < leaf.count && leaf.key(i).compareTo(data) == 0) {
+                return leaf.key(i);
+            }
+        }
+        throw new NoSuchElementException("Data was not found");
+    }
+
+    /**
+     * Returns whether data equal to the parameter is in the tree.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return whether the data is in the tree
+     */
+    public boolean contains(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T> leaf = findLeaf(data);
+        if (leaf == null) {
+            return false;
+        }
+        int i = lowerBound(leaf, data);
+        return i < leaf.count && leaf.key(i).compareTo(data) == 0;
+    }
+
+    /**
+     * Returns a sorted list of data that are within the threshold data
+     * values, exclusive on both ends, like AVL.sortedInBetween.
+     *
+     * Drains rangeIterator, which walks the linked leaves.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return a sorted list of data that is > data1 and < data2
+     */
+    public List<T> sortedInBetween(T data1, T data2) {
+        List<T> sorted = new ArrayList<>();
+        rangeIterator(data1, data2).forEachRemaining(sorted::add);
+        return sorted;
+    }
+
+    /**
+     * Returns a cursor over the data that are > data1 and < data2, in sorted
+     * order. Finding the first data takes one descent; after that the cursor
+     * moves along the leaf links.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return an iterator over the data that are > data1 and < data2
+     */
+    public LeafIterator rangeIterator(T data1, T data2) {
+        if (data1 == null) {
+            throw new IllegalArgumentException("Data1 cannot be null");
+        }
+        if (data2 == null) {
+            throw new IllegalArgumentException("Data2 cannot be null");
+        }
+        if (data1.compareTo(data2) > 0) {
+            throw new IllegalArgumentException("Data1 cannot be greater than"
+                    + " data2");
+        }
+        Node<T> leaf = findLeaf(data1);
+        int index = (leaf == null) ? 0 : upperBound(leaf, data1);
+        return new LeafIterator(leaf, index, data2);
+    }
+
+    /**
+     * Returns an iterator over the tree in sorted order.
+     *
+     * @return an iterator starting at the smallest data
+     */
+    @Override
+    public LeafIterator iterator() {
+        Node<T> leaf = root;
+        while (leaf != null && leaf.children != null) {
+            leaf = leaf.children[0];
+        }
+        return new LeafIterator(leaf, 0, null);
+    }
+
+    /**
+     * Clears the tree.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+        ++modCount;
+    }
+
+    /**
+     * Returns the height of the root of the tree: the number of inner
+     * levels above the leaves, so a tree that is a single leaf has height
+     * 0.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int height() {
+        int height = -1;
+        for (Node<T> node = root; node != null;
+                node = (node.children == null) ? null : node.children[0]) {
+            ++height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of data in the tree.
+     *
+     * @return number of data in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * helper method that finds the leaf that holds or would hold the data
+     *
+     * @param data the data being searched for
+     * @return the leaf, or null if the tree is empty
+     */
+    private Node<T> findLeaf(T data) {
+        Node<T> node = root;
+        while (node != null && node.children != null) {
+            node = node.children[upperBound(node, data)];
+        }
+        return node;
+    }
+
+    /**
+     * Returns the index of the first key in a node that is >= the data.
+     *
+     * @param node the node to search
+     * @param data the data being searched for
+     * @param <T> data type
+     * @return index from 0 to node.count
+     */
+    private static <T extends Comparable<? super T>> int lowerBound(
+            Node<T> node, T data) {
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (node.key(mid).compareTo(data) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the index of the first key in a node that is > the data, which
+     * for an inner node is the index of the child to descend into.
+     *
+     * @param node the node to search
+     * @param data the data being searched for
+     * @param <T> data type
+     * @return index from 0 to node.count
+     */
+    private static <T extends Comparable<? super T>> int upperBound(
+            Node<T> node, T data) {
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (node.key(mid).compareTo(data) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * helper method that puts a key at index i of a node, and for an inner
+     * node the child to the right of it at i + 1
+     *
+     * @param node node with room for one more key
+     * @param i index of the new key
+     * @param key key to insert
+     * @param child child to insert, null for a leaf
+     */
+    private static <T> void insert(Node<T> node, int i, T key,
+                                   Node<T> child) {
+        System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+        node.keys[i] = key;
+        if (child != null) {
+            System.arraycopy(node.children, i + 1, node.children, i + 2,
+                    node.count - i);
+            node.children[i + 1] = child;
+        }
+        ++node.count;
+    }
+
+    /**
+     * helper method that removes the key at index i of a node, and for an
+     * inner node the child at index child
+     *
+     * @param node node to remove from
+     * @param i index of the key
+     * @param child index of the child, ignored for a leaf
+     */
+    private static void delete(Node<?> node, int i, int child) {
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.count - i - 1);
+        node.keys[node.count - 1] = null;
+        if (node.children != null) {
+            System.arraycopy(node.children, child + 1, node.children, child,
+                    node.count - child);
+            node.children[node.count] = null;
+        }
+        --node.count;
+    }
+
+    /**
+     * helper method that moves the upper half of an overfull leaf into a
+     * new leaf linked after it
+     *
+     * @param node the overfull leaf
+     * @return the new right leaf
+     */
+    private static <T> Node<T> splitLeaf(Node<T> node) {
+        Node<T> right = new Node<>(true);
+        int half = node.count / 2;
+        right.count = node.count - half;
+        System.arraycopy(node.keys, half, right.keys, 0, right.count);
+        Arrays.fill(node.keys, half, node.count, null);
+        node.count = half;
+        right.next = node.next;
+        node.next = right;
+        return right;
+    }
+
+    /**
+     * helper method that moves the keys and children above the middle key
+     * of an overfull inner node into a new node. The middle key itself is
+     * dropped from both, since the caller moves it up to the parent.
+     *
+     * @param node the overfull inner node
+     * @return the new right node
+     */
+    private static <T> Node<T> splitInner(Node<T> node) {
+        Node<T> right = new Node<>(false);
+        int mid = node.count / 2;
+        right.count = node.count - mid - 1;
+        System.arraycopy(node.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(node.children, mid + 1, right.children, 0,
+                right.count + 1);
+        Arrays.fill(node.keys, mid, node.count, null);
+        Arrays.fill(node.children, mid + 1, node.count + 1, null);
+        node.count = mid;
+        return right;
+    }
+
+    /**
+     * helper method that moves the last key of the left sibling into an
+     * underfull node, through the parent for inner nodes
+     *
+     * @param parent parent of both nodes
+     * @param child index of node in parent
+     * @param left left sibling with a key to spare
+     * @param node the underfull node
+     */
+    private static <T> void borrowFromLeft(Node<T> parent, int child,
+                                           Node<T> left, Node<T> node) {
+        if (node.children == null) {
+            insert(node, 0, left.key(left.count - 1), null);
+            delete(left, left.count - 1, left.count - 1);
+            parent.keys[child - 1] = node.keys[0];
+            return;
+        }
+        System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+        System.arraycopy(node.children, 0, node.children, 1, node.count + 1);
+        node.keys[0] = parent.keys[child - 1];
+        node.children[0] = left.children[left.count];
+        ++node.count;
+        parent.keys[child - 1] = left.keys[left.count - 1];
+        delete(left, left.count - 1, left.count);
+    }
+
+    /**
+     * helper method that moves the first key of the right sibling into an
+     * underfull node, through the parent for inner nodes
+     *
+     * @param parent parent of both nodes
+     * @param child index of node in parent
+     * @param node the underfull node
+     * @param right right sibling with a key to spare
+     */
+    private static <T> void borrowFromRight(Node<T> parent, int child,
+                                            Node<T> node, Node<T> right) {
+        if (node.children == null) {
+            node.keys[node.count++] = right.keys[0];
+            delete(right, 0, 0);
+            parent.keys[child] = right.keys[0];
+            return;
+        }
+        node.keys[node.count] = parent.keys[child];
+        node.children[node.count + 1] = right.children[0];
+        ++node.count;
+        parent.keys[child] = right.keys[0];
+        delete(right, 0, 0);
+    }
+
+    /**
+     * helper method that merges a node into its left sibling and removes
+     * the separator between them from the parent. For inner nodes the
+     * separator moves down between the two halves.
+     *
+     * @param parent parent of both nodes
+     * @param separator index in parent of the key between the nodes
+     * @param left the node to merge into
+     * @param right the node being merged, dropped afterwards
+     */
+    private static <T> void merge(Node<T> parent, int separator,
+                                  Node<T> left, Node<T> right) {
+        if (left.children == null) {
+            System.arraycopy(right.keys, 0, left.keys, left.count,
+                    right.count);
+            left.count += right.count;
+            left.next = right.next;
+        } else {
+            left.keys[left.count] = parent.keys[separator];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1,
+                    right.count);
+            System.arraycopy(right.children, 0, left.children,
+                    left.count + 1, right.count + 1);
+            left.count += right.count + 1;
+        }
+        delete(parent, separator, separator + 1);
+    }
+
+    /**
+     * Iterator that walks the linked leaves, optionally stopping at an
+     * exclusive upper bound.
+     */
+    public final class LeafIterator implements Iterator<T> {
+        private final T upper;
+        private Node<T> leaf;
+        private int index;
+        private int expected = modCount;
+
+        /**
+         * Creates an iterator.
+         *
+         * @param leaf leaf holding the first data, or null if there is none
+         * @param index index of the first data in the leaf, which may be
+         * one past its last key
+         * @param upper data at which to stop, exclusive, or null to run to
+         * the end of the tree
+         */
+        private LeafIterator(Node<T> leaf, int index, T upper) {
+            this.leaf = leaf;
+            this.index = index;
+            this.upper = upper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (leaf != null && index == leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            return leaf != null
+                    && (upper == null || leaf.key(index).compareTo(upper) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more data");
+            }
+            return leaf.key(index++);
+        }
+    }
+
+    /**
+     * A leaf or inner node. Both have room for one key more than MAX_KEYS,
+     * so a node can overflow before it is split.
+     *
+     * @param <T> data type
+     */
+    private static final class Node<T> {
+        private final Object[] keys = new Object[MAX_KEYS + 1];
+        private final Node<T>[] children;
+        private int count;
+        private Node<T> next;
+
+        /**
+         * Creates an empty node.
+         *
+         * @param leaf whether the node is a leaf, which has no children
+         */
+        private Node(boolean leaf) {
+            children = leaf ? null : new Node[MAX_KEYS + 2];
+        }
+
+        /**
+         * Returns the key at an index.
+         *
+         * @param i index of the key
+         * @return the key
+         */
+        private T key(int i) {
+            return (T) keys[i];
+        }
+    }
+}
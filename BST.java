@@ -2,21 +2,81 @@ import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Your implementation of a binary search tree.
  *
+ * Every operation walks the tree with loops and explicit stacks instead of
+ * recursion, so a degenerate tree built from sorted input costs O(n) per
+ * operation but never overflows the call stack.
+ *
+ * Besides the list traversals, the tree can be walked lazily with
+ * iterators that stop as soon as the caller does.
+ *
+ * By default the tree never rebalances. A tree created with
+ * Balancing.SCAPEGOAT instead keeps its height within log base 3/2 of n by
+ * rebuilding subtrees that got too lopsided into perfectly balanced ones,
+ * so add, remove and the searches take amortized O(log n) time even for
+ * sorted input. The nodes are ordinary BSTNodes either way, and getRoot
+ * works the same.
+ *
  * @author Carson Duerr
  * @userid cduerr3
  * @GTID 903186923
  * @version 1.0
  */
-public class BST<T extends Comparable<? super T>> {
-    // DO NOT ADD OR MODIFY INSTANCE VARIABLES.
+public class BST<T extends Comparable<? super T>> implements Iterable<T> {
+    /**
+     * Parallel operations give each node this many levels below the root
+     * its own fork-join task, and walk the subtree under it in that task.
+     *
+     * The split is by depth rather than by subtree size because nodes do
+     * not know their subtree sizes, and counting them would cost a full
+     * pass before any parallel work starts. Tasks are even when the tree
+     * is balanced, as with Balancing.SCAPEGOAT. In a tree left skewed by
+     * sorted input the top levels hold few nodes, so most of the work
+     * lands in a few tasks and the scan gains little from extra threads.
+     */
+    public static final int PARALLEL_DEPTH = 12;
+    private static final int MAX_DEPTH = 64;
+    private static final double LOG_THREE_HALVES = Math.log(1.5);
     private BSTNode<T> root;
     private int size;
+    private int modCount;
+    private Balancing balancing = Balancing.NONE;
+    private int maxSize;
+
+    /**
+     * How the tree keeps itself balanced.
+     */
+    public enum Balancing {
+        /**
+         * Never rebalance. The tree takes whatever shape the order of
+         * adds and removes gives it.
+         */
+        NONE,
+        /**
+         * Scapegoat tree with alpha 2/3. When an add creates a node deeper
+         * than log base 3/2 of the largest size since the last full
+         * rebuild, the nearest ancestor with a child holding more than 2/3
+         * of its subtree is rebuilt. When removes shrink the tree below 2/3
+         * of that size, the whole tree is rebuilt.
+         */
+        SCAPEGOAT
+    }
 
     /**
      * A no-argument constructor that should initialize an empty BST.
@@ -29,12 +89,14 @@ public class BST<T extends Comparable<? super T>> {
     }
 
     /**
-     * Initializes the BST with the data in the Collection. The data
-     * should be added in the same order it is in the Collection.
+     * Initializes the BST with the data in the Collection.
      *
-     * Hint: Not all Collections are indexable like Lists, so a regular for loop
-     * will not work here. However, all Collections are Iterable, so what type
-     * of loop would work?
+     * The data is sorted (skipped if it is already in order), duplicates
+     * are dropped keeping the first one in iteration order, and a perfectly
+     * balanced tree is built bottom-up in O(n). So the tree holds the same
+     * data as adding it in order would give, but is balanced even when the
+     * input is sorted, instead of having the shape the insertion order
+     * would give it.
      *
      * @param data the data to add to the tree
      * @throws IllegalArgumentException if data or any element in data is null
@@ -43,12 +105,95 @@ public class BST<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        for (T curr: data) {
-            if (curr == null) {
+        Object[] sorted = sortedDistinct(data);
+        size = sorted.length;
+        maxSize = size;
+        root = build(sorted, 0, sorted.length - 1);
+    }
+
+    /**
+     * Creates an empty tree that balances itself with the given policy.
+     *
+     * @param balancing the balancing policy
+     * @throws IllegalArgumentException if balancing is null
+     */
+    public BST(Balancing balancing) {
+        if (balancing == null) {
+            throw new IllegalArgumentException("Balancing cannot be null");
+        }
+        this.balancing = balancing;
+    }
+
+    /**
+     * Initializes the tree with the data in the Collection like
+     * BST(Collection), and then balances it with the given policy.
+     *
+     * @param data the data to add to the tree
+     * @param balancing the balancing policy
+     * @throws IllegalArgumentException if data, any element in data or
+     * balancing is null
+     */
+    public BST(Collection<T> data, Balancing balancing) {
+        this(data);
+        if (balancing == null) {
+            throw new IllegalArgumentException("Balancing cannot be null");
+        }
+        this.balancing = balancing;
+    }
+
+    /**
+     * helper method that copies a Collection into a sorted array without
+     * duplicates, only sorting when the data is not already in order. The
+     * sort is stable, so the first of several equal data is the one kept.
+     *
+     * @param data the data to sort
+     * @throws IllegalArgumentException if any element in data is null
+     * @return sorted array of distinct data
+     */
+    private Object[] sortedDistinct(Collection<T> data) {
+        Object[] array = data.toArray();
+        boolean strictlySorted = true;
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == null) {
                 throw new IllegalArgumentException("Data cannot be null");
             }
-            add(curr);
+            if (strictlySorted && i > 0
+                    && ((T) array[i - 1]).compareTo((T) array[i]) >= 0) {
+                strictlySorted = false;
+            }
+        }
+        if (strictlySorted) {
+            return array;
+        }
+        Arrays.sort(array);
+        int distinct = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (distinct == 0
+                    || ((T) array[distinct - 1]).compareTo((T) array[i]) != 0) {
+                array[distinct++] = array[i];
+            }
+        }
+        return Arrays.copyOf(array, distinct);
+    }
+
+    /**
+     * helper method that builds a balanced subtree from a sorted range, the
+     * middle element becoming the root. Recurses only O(log n) deep.
+     *
+     * @param sorted sorted distinct data
+     * @param lo first index of the range
+     * @param hi last index of the range
+     * @return root of the subtree, or null for an empty range
+     */
+    private BSTNode<T> build(Object[] sorted, int lo, int hi) {
+        if (lo > hi) {
+            return null;
         }
+        int mid = (lo + hi) >>> 1;
+        BSTNode<T> node = new BSTNode<T>((T) sorted[mid]);
+        node.setLeft(build(sorted, lo, mid - 1));
+        node.setRight(build(sorted, mid + 1, hi));
+        return node;
     }
 
     /**
@@ -58,7 +203,7 @@ public class BST<T extends Comparable<? super T>> {
      * incremented).
      * 
      * Should have a running time of O(log n) for a balanced tree, and a worst
-     * case of O(n).
+     * case of O(n). With Balancing.SCAPEGOAT it is amortized O(log n).
      *
      * @throws IllegalArgumentException if the data is null
      * @param data the data to be added
@@ -67,29 +212,37 @@ public class BST<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        root = rAdd(data, root);
-    }
-
-    /**
-     * Recursive helper method for add
-     *
-     * @param data the data to be added
-     * @param node the node location being checked
-     * @return current BST node
-     */
-    private BSTNode<T> rAdd(T data, BSTNode<T> node) {
-        if (node == null) {
+        if (balancing == Balancing.SCAPEGOAT) {
+            addScapegoat(data);
+            return;
+        }
+        if (root == null) {
+            root = new BSTNode<T>(data);
             ++size;
-            return new BSTNode<T>(data);
-        } else if (node.getData().compareTo(data) == 0) {
-            return node;
-        } else {
-            if (node.getData().compareTo(data) > 0) {
-                node.setLeft(rAdd(data, node.getLeft()));
-                return node;
+            ++modCount;
+            return;
+        }
+        BSTNode<T> node = root;
+        while (true) {
+            int cmp = node.getData().compareTo(data);
+            if (cmp == 0) {
+                return;
+            } else if (cmp > 0) {
+                if (node.getLeft() == null) {
+                    node.setLeft(new BSTNode<T>(data));
+                    ++size;
+                    ++modCount;
+                    return;
+                }
+                node = node.getLeft();
             } else {
-                node.setRight(rAdd(data, node.getRight()));
-                return node;
+                if (node.getRight() == null) {
+                    node.setRight(new BSTNode<T>(data));
+                    ++size;
+                    ++modCount;
+                    return;
+                }
+                node = node.getRight();
             }
         }
     }
@@ -100,12 +253,10 @@ public class BST<T extends Comparable<? super T>> {
      * 1: the data is a leaf (no children). In this case, simply remove it.
      * 2: the data has one child. In this case, simply replace it with its
      * child.
-     * 3: the data has 2 children. Use the predecessor to replace the data.
-     * You MUST use recursion to find and remove the predecessor (you will
-     * likely need an additional helper method to handle this case efficiently).
+     * 3: the data has 2 children. Use the successor to replace the data.
      *
      * Should have a running time of O(log n) for a balanced tree, and a worst
-     * case of O(n).
+     * case of O(n). With Balancing.SCAPEGOAT it is amortized O(log n).
      *
      * @throws IllegalArgumentException if the data is null
      * @throws java.util.NoSuchElementException if the data is not found
@@ -117,64 +268,179 @@ public class BST<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
-        BSTNode<T> n = new BSTNode<T>(null);
-        root = rRemove(data, root, n);
+        BSTNode<T> parent = null;
+        BSTNode<T> node = root;
+        int cmp;
+        while (node != null && (cmp = node.getData().compareTo(data)) != 0) {
+            parent = node;
+            node = (cmp > 0) ? node.getLeft() : node.getRight();
+        }
+        if (node == null) {
+            throw new java.util.NoSuchElementException("This data is not in"
+                    + " the structure");
+        }
+        T removed = node.getData();
+        if (node.getLeft() != null && node.getRight() != null) {
+            BSTNode<T> successorParent = node;
+            BSTNode<T> successor = node.getRight();
+            while (successor.getLeft() != null) {
+                successorParent = successor;
+                successor = successor.getLeft();
+            }
+            node.setData(successor.getData());
+            replaceChild(successorParent, successor, successor.getRight());
+        } else {
+            replaceChild(parent, node, (node.getLeft() != null)
+                    ? node.getLeft() : node.getRight());
+        }
         --size;
-        return n.getData();
+        ++modCount;
+        if (balancing == Balancing.SCAPEGOAT && 3 * size < 2 * maxSize) {
+            root = rebuild(root, size);
+            maxSize = size;
+        }
+        return removed;
     }
 
     /**
-     * Recursive helper method for the remove method
+     * helper method that adds the data to a scapegoat tree. The path is
+     * recorded on the way down; if the new leaf is too deep, the path is
+     * walked back up counting subtree sizes until an ancestor is found
+     * whose child on the path holds more than 2/3 of its subtree, and that
+     * ancestor's subtree is rebuilt. Such an ancestor always exists when
+     * the leaf is too deep.
      *
-     * @throws java.util.NoSuchElementException if the data is not in the tree
-     * @param data the data that is to be removed
-     * @param node current node being looked at
-     * @param x node used to store removed data
-     * @return current node being looked at
+     * @param data the data to be added
      */
-    private BSTNode<T> rRemove(T data, BSTNode<T> node, BSTNode<T> x) {
-        if (node == null) {
-            throw new java.util.NoSuchElementException("This data is not in"
-                    + " the structure");
-        }
-        if (node.getData().compareTo(data) == 0) {
-            x.setData(node.getData());
-            if (node.getLeft() == null && node.getRight() == null) {
-                return null;
-            } else if (node.getLeft() != null && node.getRight() == null) {
-                return node.getLeft();
-            } else if (node.getLeft() == null && node.getRight() != null) {
-                return node.getRight();
-            } else {
-                BSTNode<T> temp = new BSTNode<T>(null);
-                node.setRight(findSuccessor(node.getRight(), temp));
-                node.setData(temp.getData());
+    private void addScapegoat(T data) {
+        BSTNode<T>[] path = new BSTNode[MAX_DEPTH];
+        int depth = 0;
+        BSTNode<T> node = root;
+        while (node != null) {
+            int cmp = node.getData().compareTo(data);
+            if (cmp == 0) {
+                return;
             }
+            path[depth++] = node;
+            node = (cmp > 0) ? node.getLeft() : node.getRight();
+        }
+        BSTNode<T> leaf = new BSTNode<T>(data);
+        if (depth == 0) {
+            root = leaf;
+        } else if (path[depth - 1].getData().compareTo(data) > 0) {
+            path[depth - 1].setLeft(leaf);
         } else {
-            if (node.getData().compareTo(data) > 0) {
-                node.setLeft(rRemove(data, node.getLeft(), x));
-            } else {
-                node.setRight(rRemove(data, node.getRight(), x));
+            path[depth - 1].setRight(leaf);
+        }
+        ++size;
+        ++modCount;
+        maxSize = Math.max(maxSize, size);
+        if (depth <= Math.log(maxSize) / LOG_THREE_HALVES) {
+            return;
+        }
+        BSTNode<T> child = leaf;
+        int childSize = 1;
+        for (int i = depth - 1; i >= 0; i--) {
+            BSTNode<T> parent = path[i];
+            BSTNode<T> sibling = (parent.getLeft() == child)
+                    ? parent.getRight() : parent.getLeft();
+            int parentSize = childSize + 1 + count(sibling);
+            if (3 * childSize > 2 * parentSize) {
+                replaceChild((i == 0) ? null : path[i - 1], parent,
+                        rebuild(parent, parentSize));
+                return;
             }
+            child = parent;
+            childSize = parentSize;
         }
+    }
+
+    /**
+     * helper method that counts the nodes in a subtree
+     *
+     * @param node root of the subtree, may be null
+     * @return number of nodes in the subtree
+     */
+    private int count(BSTNode<T> node) {
+        int count = 0;
+        Deque<BSTNode<T>> stack = new ArrayDeque<>();
+        if (node != null) {
+            stack.push(node);
+        }
+        while (!stack.isEmpty()) {
+            BSTNode<T> current = stack.pop();
+            ++count;
+            if (current.getLeft() != null) {
+                stack.push(current.getLeft());
+            }
+            if (current.getRight() != null) {
+                stack.push(current.getRight());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * helper method that relinks the nodes of a subtree into a perfectly
+     * balanced subtree, in O(count) and without allocating new nodes
+     *
+     * @param node root of the subtree, may be null
+     * @param count number of nodes in the subtree
+     * @return root of the rebuilt subtree
+     */
+    private BSTNode<T> rebuild(BSTNode<T> node, int count) {
+        BSTNode<T>[] sorted = new BSTNode[count];
+        int i = 0;
+        Deque<BSTNode<T>> stack = new ArrayDeque<>();
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+            }
+            node = stack.pop();
+            sorted[i++] = node;
+            node = node.getRight();
+        }
+        return link(sorted, 0, count - 1);
+    }
+
+    /**
+     * helper method that links a sorted range of nodes into a balanced
+     * subtree, the middle node becoming the root. Recurses only O(log n)
+     * deep.
+     *
+     * @param sorted nodes in sorted order
+     * @param lo first index of the range
+     * @param hi last index of the range
+     * @return root of the subtree, or null for an empty range
+     */
+    private BSTNode<T> link(BSTNode<T>[] sorted, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        BSTNode<T> node = sorted[mid];
+        node.setLeft(link(sorted, lo, mid - 1));
+        node.setRight(link(sorted, mid + 1, hi));
         return node;
     }
 
     /**
-     * Recursive helper that finds the successor of a given node
+     * helper method that puts a replacement where a child used to be
      *
-     * @param node current node whose successor is being looked for
-     * @param temp node used to store successor data
-     * @return node to be removed
+     * @param parent parent of the child, or null if the child is the root
+     * @param child child being replaced
+     * @param replacement node taking its place, may be null
      */
-    private BSTNode<T> findSuccessor(BSTNode<T> node, BSTNode<T> temp) {
-        if (node.getLeft() == null) {
-            temp.setData(node.getData());
-            return node.getRight();
+    private void replaceChild(BSTNode<T> parent, BSTNode<T> child,
+                              BSTNode<T> replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.getLeft() == child) {
+            parent.setLeft(replacement);
         } else {
-            node.setLeft(findSuccessor(node.getLeft(), temp));
+            parent.setRight(replacement);
         }
-        return node;
     }
 
     /**
@@ -198,28 +464,29 @@ public class BST<T extends Comparable<? super T>> {
         if (size == 0) {
             throw new NoSuchElementException("The data structure is empty");
         }
-        return rGet(data, root);
+        BSTNode<T> node = find(data);
+        if (node == null) {
+            throw new NoSuchElementException("Data was not found");
+        }
+        return node.getData();
     }
 
     /**
-     * Recursive helper method for the get method
+     * helper method that finds the node holding data equal to the parameter
      *
      * @param data the data being searched for
-     * @param node current node being looked at
-     * @return the data that was searched for
+     * @return the node, or null if the data is not in the tree
      */
-    private T rGet(T data, BSTNode<T> node) {
-        if (node == null) {
-            throw new NoSuchElementException("Data was not found");
-        } else if (node.getData().compareTo(data) == 0) {
-            return node.getData();
-        } else {
-            if (node.getData().compareTo(data) > 0) {
-                return rGet(data, node.getLeft());
-            } else {
-                return rGet(data, node.getRight());
+    private BSTNode<T> find(T data) {
+        BSTNode<T> node = root;
+        while (node != null) {
+            int cmp = node.getData().compareTo(data);
+            if (cmp == 0) {
+                return node;
             }
+            node = (cmp > 0) ? node.getLeft() : node.getRight();
         }
+        return null;
     }
 
     /**
@@ -238,28 +505,7 @@ public class BST<T extends Comparable<? super T>> {
         if (data == null) {
             throw new IllegalArgumentException("Cannot remove null data");
         }
-        return rContains(data, root);
-    }
-
-    /**
-     * recursive helper method for the contains method
-     *
-     * @param data the data be searched for
-     * @param node current node being looked at
-     * @return true if data is found, false if not
-     */
-    private boolean rContains(T data, BSTNode<T> node) {
-        if (node == null) {
-            return false;
-        } else if (node.getData().compareTo(data) == 0) {
-            return true;
-        } else {
-            if (node.getData().compareTo(data) > 0) {
-                return rContains(data, node.getLeft());
-            } else {
-                return rContains(data, node.getRight());
-            }
-        }
+        return find(data) != null;
     }
 
     /**
@@ -268,25 +514,22 @@ public class BST<T extends Comparable<? super T>> {
      * @return a preorder traversal of the tree
      */
     public List<T> preorder() {
-        ArrayList<T> preList = new ArrayList<T>();
-        preList = rPreOrder(root, preList);
-        return preList;
-    }
-
-    /**
-     * recursive helper for preorder method
-     *
-     * @param root starting node of the recursion
-     * @param list stores the data in preorder
-     * @return list of data in preorder
-     */
-    private ArrayList<T> rPreOrder(BSTNode<T> root, ArrayList<T> list) {
+        ArrayList<T> preList = new ArrayList<T>(size);
+        Deque<BSTNode<T>> stack = new ArrayDeque<BSTNode<T>>();
         if (root != null) {
-            list.add(root.getData());
-            rPreOrder(root.getLeft(), list);
-            rPreOrder(root.getRight(), list);
+            stack.push(root);
         }
-        return list;
+        while (!stack.isEmpty()) {
+            BSTNode<T> node = stack.pop();
+            preList.add(node.getData());
+            if (node.getRight() != null) {
+                stack.push(node.getRight());
+            }
+            if (node.getLeft() != null) {
+                stack.push(node.getLeft());
+            }
+        }
+        return preList;
     }
 
     /**
@@ -295,25 +538,19 @@ public class BST<T extends Comparable<? super T>> {
      * @return an inorder traversal of the tree
      */
     public List<T> inorder() {
-        ArrayList<T> inList = new ArrayList<T>();
-        inList = rInOrder(root, inList);
-        return inList;
-    }
-
-    /**
-     * recursive helper for the in order traversal method
-     *
-     * @param root starting node of the recursion
-     * @param list stores the data in order
-     * @return list of data in order
-     */
-    private ArrayList<T> rInOrder(BSTNode<T> root, ArrayList<T> list) {
-        if (root != null) {
-            rInOrder(root.getLeft(), list);
-            list.add(root.getData());
-            rInOrder(root.getRight(), list);
+        ArrayList<T> inList = new ArrayList<T>(size);
+        Deque<BSTNode<T>> stack = new ArrayDeque<BSTNode<T>>();
+        BSTNode<T> node = root;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+            }
+            node = stack.pop();
+            inList.add(node.getData());
+            node = node.getRight();
         }
-        return list;
+        return inList;
     }
 
     /**
@@ -322,25 +559,24 @@ public class BST<T extends Comparable<? super T>> {
      * @return a postorder traversal of the tree
      */
     public List<T> postorder() {
-        ArrayList<T> postList = new ArrayList<T>();
-        postList = rPostOrder(root, postList);
-        return postList;
-    }
-
-    /**
-     * helper method for post order traversal
-     *
-     * @param root starting node of the recursion
-     * @param list stores the data in post order
-     * @return list of data in post order
-     */
-    private ArrayList<T> rPostOrder(BSTNode<T> root, ArrayList<T> list) {
-        if (root != null) {
-            rPostOrder(root.getLeft(), list);
-            rPostOrder(root.getRight(), list);
-            list.add(root.getData());
+        ArrayList<T> postList = new ArrayList<T>(size);
+        Deque<BSTNode<T>> stack = new ArrayDeque<BSTNode<T>>();
+        BSTNode<T> node = root;
+        BSTNode<T> last = null;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+            }
+            BSTNode<T> top = stack.peek();
+            if (top.getRight() != null && top.getRight() != last) {
+                node = top.getRight();
+            } else {
+                postList.add(top.getData());
+                last = stack.pop();
+            }
         }
-        return list;
+        return postList;
     }
 
     /**
@@ -356,14 +592,14 @@ public class BST<T extends Comparable<? super T>> {
      * @return a level order traversal of the tree
      */
     public List<T> levelorder() {
-        ArrayList<T> list = new ArrayList<T>();
+        ArrayList<T> list = new ArrayList<T>(size);
         Queue<BSTNode<T>> queue = new ArrayDeque<BSTNode<T>>();
-        queue.add(root);
+        if (root != null) {
+            queue.add(root);
+        }
         while (!queue.isEmpty()) {
             BSTNode<T> n = queue.poll();
-            if (n != null) {
-                list.add(n.getData());
-            }
+            list.add(n.getData());
             if (n.getLeft() != null) {
                 queue.add(n.getLeft());
             }
@@ -391,35 +627,123 @@ public class BST<T extends Comparable<? super T>> {
      * find evidence that the tree is not a BST rather than checking the rest
      * of the tree.
      *
+     * Walks the tree in order with an explicit stack; the tree is a BST
+     * exactly when no data is smaller than the data visited before it.
+     *
      * @param <T> the generic typing
      * @param treeRoot the root of the binary tree to check
      * @return true if the binary tree is a BST, false otherwise
      */
     public static <T extends Comparable<? super T>> boolean isBST(
             BSTNode<T> treeRoot) {
-        return rIsBST(treeRoot, null, null);
+        return isBST(treeRoot, null, null, null);
     }
 
     /**
-     * recursive helper for isBST method
-     * @param curr current node being looked at
-     * @param min smaller value
-     * @param max larger value
-     * @param <T> data type
-     * @return true if tree is a BST, false if not
+     * helper method that checks a subtree in order, like isBST, and also
+     * that all of its data is within bounds
+     *
+     * @param treeRoot root of the subtree
+     * @param lower data every data must be >=, or null for no bound
+     * @param upper data every data must be <=, or null for no bound
+     * @param invalid set by another task once it has found the tree is
+     * not a BST, so this check can stop early; may be null
+     * @param <T> the generic typing
+     * @return true if the subtree is a BST within the bounds
      */
-    private static <T extends Comparable<? super T>> boolean rIsBST(
-            BSTNode<T> curr, T min, T max)  {
-        if (curr == null) {
-            return true;
+    private static <T extends Comparable<? super T>> boolean isBST(
+            BSTNode<T> treeRoot, T lower, T upper, AtomicBoolean invalid) {
+        Deque<BSTNode<T>> stack = new ArrayDeque<BSTNode<T>>();
+        BSTNode<T> curr = treeRoot;
+        T previous = lower;
+        int visited = 0;
+        while (curr != null || !stack.isEmpty()) {
+            while (curr != null) {
+                stack.push(curr);
+                curr = curr.getLeft();
+            }
+            curr = stack.pop();
+            if (previous != null && curr.getData().compareTo(previous) < 0) {
+                return false;
+            }
+            if (invalid != null && (++visited & 1023) == 0
+                    && invalid.get()) {
+                return false;
+            }
+            previous = curr.getData();
+            curr = curr.getRight();
         }
-        if (min != null && curr.getData().compareTo(min) < 0) {
-            return false;
-        } else if (max != null && curr.getData().compareTo(max) > 0) {
-            return false;
+        return upper == null || previous == null
+                || previous.compareTo(upper) <= 0;
+    }
+
+    /**
+     * Parallel version of isBST. The top PARALLEL_DEPTH levels of the tree
+     * are split into fork-join tasks, each checking that its subtree stays
+     * within the bounds set by its ancestors, and the subtrees below them
+     * are checked in order like isBST. Once one task finds the tree is not
+     * a BST the others stop soon after.
+     *
+     * @param <T> the generic typing
+     * @param treeRoot the root of the binary tree to check
+     * @return true if the binary tree is a BST, false otherwise
+     */
+    public static <T extends Comparable<? super T>> boolean parallelIsBST(
+            BSTNode<T> treeRoot) {
+        return new Validation<>(treeRoot, null, null, 0,
+                new AtomicBoolean()).invoke();
+    }
+
+    /**
+     * Performs the action on every data in the tree, in parallel. The top
+     * PARALLEL_DEPTH levels of the tree are split into fork-join tasks and
+     * the subtrees below them are each walked by one task, so the action is
+     * called from several threads and in no particular order.
+     *
+     * @param action the action to perform on each data
+     * @throws IllegalArgumentException if action is null
+     */
+    public void parallelForEach(Consumer<? super T> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
         }
-        return (rIsBST(curr.getLeft(), min, curr.getData()))
-                && rIsBST(curr.getRight(), curr.getData(), max);
+        parallelReduce(null, data -> {
+            action.accept(data);
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Maps every data in the tree and combines the results, in parallel,
+     * split into tasks like parallelForEach. Results are always combined in
+     * sorted order, so the combiner has to be associative but does not have
+     * to be commutative.
+     *
+     * @param identity result for no data, which combiner leaves unchanged
+     * @param mapper maps one data to a result
+     * @param combiner combines the results of two adjacent ranges, the
+     * smaller range first
+     * @param <R> result type
+     * @throws IllegalArgumentException if mapper or combiner is null
+     * @return the combined result of every data in the tree
+     */
+    public <R> R parallelReduce(R identity,
+                                Function<? super T, ? extends R> mapper,
+                                BinaryOperator<R> combiner) {
+        if (mapper == null || combiner == null) {
+            throw new IllegalArgumentException("Mapper and combiner cannot"
+                    + " be null");
+        }
+        return new Reduction<>(root, 0, identity, mapper, combiner).invoke();
+    }
+
+    /**
+     * Parallel version of height, split into tasks like parallelForEach.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int parallelHeight() {
+        return new Height<>(root, 0).invoke();
     }
 
 
@@ -431,6 +755,8 @@ public class BST<T extends Comparable<? super T>> {
     public void clear() {
         root = null;
         size = 0;
+        maxSize = 0;
+        ++modCount;
     }
 
     /**
@@ -443,30 +769,38 @@ public class BST<T extends Comparable<? super T>> {
      * @return the height of the root of the tree, -1 if the tree is empty
      */
     public int height() {
-        if (size == 0) {
-            return -1;
-        }
-        return rHeight(root);
+        return height(root);
     }
 
     /**
-     * recursive helper for the height method
+     * helper method that finds the height of a subtree by counting its
+     * levels breadth first
      *
-     * @param node current node to calculate the height of
-     * @return height of the node
+     * @param subtree root of the subtree, may be null
+     * @param <T> data type
+     * @return height of the subtree, -1 if it is empty
      */
-    private int rHeight(BSTNode<T> node) {
-        if (node == null) {
+    private static <T extends Comparable<? super T>> int height(
+            BSTNode<T> subtree) {
+        if (subtree == null) {
             return -1;
-        } else {
-            int leftHeight = rHeight(node.getLeft());
-            int rightHeight = rHeight(node.getRight());
-            if (leftHeight > rightHeight) {
-                return leftHeight + 1;
-            } else {
-                return rightHeight + 1;
+        }
+        int height = -1;
+        Queue<BSTNode<T>> level = new ArrayDeque<BSTNode<T>>();
+        level.add(subtree);
+        while (!level.isEmpty()) {
+            height++;
+            for (int i = level.size(); i > 0; i--) {
+                BSTNode<T> node = level.poll();
+                if (node.getLeft() != null) {
+                    level.add(node.getLeft());
+                }
+                if (node.getRight() != null) {
+                    level.add(node.getRight());
+                }
             }
         }
+        return height;
     }
 
     /**
@@ -494,4 +828,450 @@ public class BST<T extends Comparable<? super T>> {
         // DO NOT MODIFY THIS METHOD!
         return root;
     }
+
+    /**
+     * Returns an iterator over the tree in sorted order. Lazy: it keeps the
+     * path to its next node on a stack, so memory is O(height) and stopping
+     * early costs nothing. Iterators are fail-fast and support remove.
+     *
+     * @return an iterator starting at the smallest data
+     */
+    @Override
+    public InOrderIterator iterator() {
+        InOrderIterator iterator = new InOrderIterator();
+        iterator.position(null, true);
+        return iterator;
+    }
+
+    /**
+     * Returns an in-order iterator starting at the smallest data >= the
+     * parameter. Same as calling seek on a new iterator.
+     *
+     * @param from the smallest data to visit
+     * @throws IllegalArgumentException if from is null
+     * @return an iterator starting at from or the data after it
+     */
+    public InOrderIterator iterator(T from) {
+        InOrderIterator iterator = iterator();
+        iterator.seek(from);
+        return iterator;
+    }
+
+    /**
+     * Returns a spliterator over the tree in sorted order, backed by
+     * iterator.
+     *
+     * @return a sized, sorted spliterator over the tree
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED
+                        | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns an immutable copy of the tree laid out in Eytzinger order,
+     * which answers contains and get faster than the tree when it will not
+     * change again. Later changes to the tree do not affect the copy.
+     *
+     * Runs in O(n).
+     *
+     * @return a read only sorted set of the data in the tree
+     */
+    public EytzingerSet<T> toEytzinger() {
+        Object[] sorted = new Object[size];
+        int i = 0;
+        for (T data : this) {
+            sorted[i++] = data;
+        }
+        return new EytzingerSet<>(sorted, size);
+    }
+
+    /**
+     * Returns a lazy preorder iterator. Memory is O(height).
+     *
+     * @return an iterator in the same order as preorder
+     */
+    public Iterator<T> preorderIterator() {
+        return new StackIterator(false);
+    }
+
+    /**
+     * Returns a lazy postorder iterator. Memory is O(height).
+     *
+     * @return an iterator in the same order as postorder
+     */
+    public Iterator<T> postorderIterator() {
+        return new StackIterator(true);
+    }
+
+    /**
+     * Returns a lazy level order iterator. It has to queue a whole level of
+     * the tree, so memory is O(width) rather than O(height).
+     *
+     * @return an iterator in the same order as levelorder
+     */
+    public Iterator<T> levelorderIterator() {
+        int expected = modCount;
+        Queue<BSTNode<T>> queue = new ArrayDeque<BSTNode<T>>();
+        if (root != null) {
+            queue.add(root);
+        }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                if (queue.isEmpty()) {
+                    throw new NoSuchElementException("No more data");
+                }
+                BSTNode<T> n = queue.poll();
+                if (n.getLeft() != null) {
+                    queue.add(n.getLeft());
+                }
+                if (n.getRight() != null) {
+                    queue.add(n.getRight());
+                }
+                return n.getData();
+            }
+        };
+    }
+
+    /**
+     * In-order iterator over an explicit stack of the nodes it went left
+     * from.
+     */
+    public final class InOrderIterator implements Iterator<T> {
+        private final Deque<BSTNode<T>> stack = new ArrayDeque<BSTNode<T>>();
+        private int expected = modCount;
+        private T last;
+
+        /**
+         * Creates an iterator with no position yet.
+         */
+        private InOrderIterator() {
+        }
+
+        /**
+         * Moves the iterator so that next returns the smallest data >= key,
+         * in O(height). Seeking backwards is allowed.
+         *
+         * @param key data to seek to
+         * @throws IllegalArgumentException if key is null
+         * @throws java.util.ConcurrentModificationException if the tree was
+         * changed other than through this iterator
+         */
+        public void seek(T key) {
+            if (key == null) {
+                throw new IllegalArgumentException("Key cannot be null");
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            position(key, true);
+            last = null;
+        }
+
+        /**
+         * Rebuilds the stack for the first data after key.
+         *
+         * @param key data to position at, or null for the smallest data
+         * @param inclusive whether data equal to key is visited
+         */
+        private void position(T key, boolean inclusive) {
+            stack.clear();
+            BSTNode<T> node = root;
+            while (node != null) {
+                int cmp = (key == null) ? 1 : node.getData().compareTo(key);
+                if (cmp > 0 || (cmp == 0 && inclusive)) {
+                    stack.push(node);
+                    node = node.getLeft();
+                } else {
+                    node = node.getRight();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException("No more data");
+            }
+            BSTNode<T> node = stack.pop();
+            for (BSTNode<T> child = node.getRight(); child != null;
+                    child = child.getLeft()) {
+                stack.push(child);
+            }
+            last = node.getData();
+            return last;
+        }
+
+        /**
+         * Removes the data last returned by next, then seeks to the data
+         * after it, since removing a node with two children moves data
+         * between nodes.
+         *
+         * @throws IllegalStateException if next has not been called since
+         * the last remove or seek
+         * @throws java.util.ConcurrentModificationException if the tree was
+         * changed other than through this iterator
+         */
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("next has not been called");
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            BST.this.remove(last);
+            position(last, false);
+            expected = modCount;
+            last = null;
+        }
+    }
+
+    /**
+     * Preorder or postorder iterator over an explicit stack.
+     */
+    private final class StackIterator implements Iterator<T> {
+        private final Deque<BSTNode<T>> stack = new ArrayDeque<BSTNode<T>>();
+        private final boolean post;
+        private final int expected = modCount;
+
+        /**
+         * Creates an iterator at the start of the traversal.
+         *
+         * @param post true for postorder, false for preorder
+         */
+        private StackIterator(boolean post) {
+            this.post = post;
+            if (post) {
+                pushLeftPath(root);
+            } else if (root != null) {
+                stack.push(root);
+            }
+        }
+
+        /**
+         * Pushes a node and keeps going to its left child, or to its right
+         * child when there is no left one, until reaching a leaf. The top of
+         * the stack is then the first node of that subtree in postorder.
+         *
+         * @param node root of the subtree
+         */
+        private void pushLeftPath(BSTNode<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = (node.getLeft() != null) ? node.getLeft()
+                        : node.getRight();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException("No more data");
+            }
+            BSTNode<T> node = stack.pop();
+            if (post) {
+                BSTNode<T> parent = stack.peek();
+                if (parent != null && parent.getLeft() == node) {
+                    pushLeftPath(parent.getRight());
+                }
+            } else {
+                if (node.getRight() != null) {
+                    stack.push(node.getRight());
+                }
+                if (node.getLeft() != null) {
+                    stack.push(node.getLeft());
+                }
+            }
+            return node.getData();
+        }
+    }
+
+    /**
+     * Fork-join step of parallelReduce: reduces a subtree, forking its
+     * left subtree while it is above PARALLEL_DEPTH.
+     *
+     * @param <T> data type
+     * @param <R> result type
+     */
+    private static final class Reduction<T extends Comparable<? super T>, R>
+            extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+        private final BSTNode<T> node;
+        private final int depth;
+        private final R identity;
+        private final Function<? super T, ? extends R> mapper;
+        private final BinaryOperator<R> combiner;
+
+        /**
+         * Creates the step for a subtree.
+         *
+         * @param node root of the subtree, may be null
+         * @param depth depth of node in the tree
+         * @param identity result for no data
+         * @param mapper maps one data to a result
+         * @param combiner combines two adjacent results
+         */
+        private Reduction(BSTNode<T> node, int depth, R identity,
+                          Function<? super T, ? extends R> mapper,
+                          BinaryOperator<R> combiner) {
+            this.node = node;
+            this.depth = depth;
+            this.identity = identity;
+            this.mapper = mapper;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (node == null) {
+                return identity;
+            }
+            if (depth >= PARALLEL_DEPTH) {
+                R result = identity;
+                Deque<BSTNode<T>> stack = new ArrayDeque<>();
+                BSTNode<T> curr = node;
+                while (curr != null || !stack.isEmpty()) {
+                    while (curr != null) {
+                        stack.push(curr);
+                        curr = curr.getLeft();
+                    }
+                    curr = stack.pop();
+                    result = combiner.apply(result,
+                            mapper.apply(curr.getData()));
+                    curr = curr.getRight();
+                }
+                return result;
+            }
+            Reduction<T, R> left = new Reduction<>(node.getLeft(), depth + 1,
+                    identity, mapper, combiner);
+            left.fork();
+            R right = new Reduction<>(node.getRight(), depth + 1, identity,
+                    mapper, combiner).compute();
+            return combiner.apply(combiner.apply(left.join(),
+                    mapper.apply(node.getData())), right);
+        }
+    }
+
+    /**
+     * Fork-join step of parallelHeight.
+     *
+     * @param <T> data type
+     */
+    private static final class Height<T extends Comparable<? super T>>
+            extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final BSTNode<T> node;
+        private final int depth;
+
+        /**
+         * Creates the step for a subtree.
+         *
+         * @param node root of the subtree, may be null
+         * @param depth depth of node in the tree
+         */
+        private Height(BSTNode<T> node, int depth) {
+            this.node = node;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (node == null || depth >= PARALLEL_DEPTH) {
+                return height(node);
+            }
+            Height<T> left = new Height<>(node.getLeft(), depth + 1);
+            left.fork();
+            int right = new Height<>(node.getRight(), depth + 1).compute();
+            return Math.max(left.join(), right) + 1;
+        }
+    }
+
+    /**
+     * Fork-join step of parallelIsBST: checks that a subtree is a BST with
+     * all of its data within bounds.
+     *
+     * @param <T> data type
+     */
+    private static final class Validation<T extends Comparable<? super T>>
+            extends RecursiveTask<Boolean> {
+        private static final long serialVersionUID = 1L;
+        private final BSTNode<T> node;
+        private final T lower;
+        private final T upper;
+        private final int depth;
+        private final AtomicBoolean invalid;
+
+        /**
+         * Creates the step for a subtree.
+         *
+         * @param node root of the subtree, may be null
+         * @param lower data every data must be >=, or null for no bound
+         * @param upper data every data must be <=, or null for no bound
+         * @param depth depth of node in the tree
+         * @param invalid shared flag set once the tree is known not to be
+         * a BST
+         */
+        private Validation(BSTNode<T> node, T lower, T upper, int depth,
+                           AtomicBoolean invalid) {
+            this.node = node;
+            this.lower = lower;
+            this.upper = upper;
+            this.depth = depth;
+            this.invalid = invalid;
+        }
+
+        @Override
+        protected Boolean compute() {
+            boolean valid;
+            if (invalid.get()) {
+                return false;
+            } else if (node == null || depth >= PARALLEL_DEPTH) {
+                valid = isBST(node, lower, upper, invalid);
+            } else {
+                T data = node.getData();
+                valid = (lower == null || data.compareTo(lower) >= 0)
+                        && (upper == null || data.compareTo(upper) <= 0);
+                if (valid) {
+                    Validation<T> left = new Validation<>(node.getLeft(),
+                            lower, data, depth + 1, invalid);
+                    left.fork();
+                    valid = new Validation<>(node.getRight(), data, upper,
+                            depth + 1, invalid).compute();
+                    valid = left.join() && valid;
+                }
+            }
+            if (!valid) {
+                invalid.set(true);
+            }
+            return valid;
+        }
+    }
 }
\ No newline at end of file
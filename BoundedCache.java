@@ -0,0 +1,810 @@
+import java.util.NoSuchElementException;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A size bounded cache built on the same external chaining table as
+ * HashMap.
+ *
+ * Every entry is a single node that sits both in its bucket's chain and in
+ * the eviction policy's doubly linked lists, so looking up an entry and
+ * updating its recency or frequency are both O(1), and adding an entry makes
+ * one allocation. Once the cache holds more than maxEntries entries or more
+ * than maxWeight total weight, the policy picks entries to evict:
+ *
+ *   LRU evicts the least recently used entry.
+ *   LFU evicts the least frequently used entry, oldest first among ties,
+ *   using a list of frequency buckets so every update is O(1).
+ *   TINY_LFU is W-TinyLFU: new entries enter a small LRU window. Entries
+ *   leaving the window only get into the main segmented LRU if a count-min
+ *   sketch of recent access frequencies says they are used more often than
+ *   the entry they would push out. The sketch is halved periodically so old
+ *   popularity fades.
+ *
+ * Counts hits, misses and evictions. Not thread safe.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class BoundedCache<K, V> {
+
+    /**
+     * Eviction policies a BoundedCache can use.
+     */
+    public enum Policy {
+        LRU, LFU, TINY_LFU
+    }
+
+    public static final int INITIAL_CAPACITY = 11;
+    public static final double MAX_LOAD_FACTOR = 0.67;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final Tracker<K, V> tracker;
+    private Node<K, V>[] table;
+    private int size;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache that holds at most maxEntries entries.
+     *
+     * @param policy eviction policy
+     * @param maxEntries maximum number of entries
+     * @throws IllegalArgumentException if policy is null or maxEntries is
+     * non-positive
+     */
+    public BoundedCache(Policy policy, int maxEntries) {
+        this(policy, maxEntries, Long.MAX_VALUE, (k, v) -> 1);
+    }
+
+    /**
+     * Creates a cache bounded by both the number of entries and their total
+     * weight.
+     *
+     * @param policy eviction policy
+     * @param maxEntries maximum number of entries
+     * @param maxWeight maximum total weight of the entries
+     * @param weigher gives the weight of an entry, which must be
+     * non-negative and should not change while the entry is cached
+     * @throws IllegalArgumentException if policy or weigher is null, or if
+     * maxEntries or maxWeight is non-positive
+     */
+    public BoundedCache(Policy policy, int maxEntries, long maxWeight,
+                        ToIntBiFunction<? super K, ? super V> weigher) {
+        if (policy == null || weigher == null) {
+            throw new IllegalArgumentException("Policy and weigher cannot be"
+                    + " null");
+        }
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        if (policy == Policy.LRU) {
+            tracker = new LruTracker<>();
+        } else if (policy == Policy.LFU) {
+            tracker = new LfuTracker<>();
+        } else {
+            tracker = new TinyLfuTracker<>(maxEntries);
+        }
+        table = new Node[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the value associated with the given key, counting a hit or a miss
+     * and updating the key's recency and frequency.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not cached
+     * @return the value associated with the given key
+     */
+    public V get(K key) {
+        V value = getIfPresent(key);
+        if (value == null) {
+            throw new NoSuchElementException("Key is not cached");
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key, or null if it is not
+     * cached. Counts a hit or a miss like get.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return the cached value, or null
+     */
+    public V getIfPresent(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int hash = spread(key);
+        Node<K, V> node = find(key, hash);
+        tracker.recordAccess(hash);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        tracker.onHit(node);
+        return node.value;
+    }
+
+    /**
+     * Adds the given key-value pair to the cache, replacing the value if the
+     * key is already cached, then evicts entries until the cache is within
+     * its limits. The new entry itself may be evicted if the policy prefers
+     * the entries already cached.
+     *
+     * @param key key to add
+     * @param value value to add
+     * @throws IllegalArgumentException if key or value is null, or the
+     * weigher returns a negative weight
+     * @return null if the key was not already cached. If it was, return the
+     * old value associated with it
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        int entryWeight = weigher.applyAsInt(key, value);
+        if (entryWeight < 0) {
+            throw new IllegalArgumentException("Weight cannot be negative");
+        }
+        int hash = spread(key);
+        tracker.recordAccess(hash);
+        Node<K, V> node = find(key, hash);
+        V old = null;
+        if (node != null) {
+            old = node.value;
+            node.value = value;
+            weight += entryWeight - node.weight;
+            node.weight = entryWeight;
+            tracker.onHit(node);
+        } else {
+            if ((size + 1.0) / table.length > MAX_LOAD_FACTOR) {
+                resize(2 * table.length + 1);
+            }
+            node = new Node<>(key, value, hash, entryWeight);
+            int index = findInd(hash, table.length);
+            node.next = table[index];
+            table[index] = node;
+            size++;
+            weight += entryWeight;
+            tracker.onInsert(node);
+        }
+        while (size > maxEntries || weight > maxWeight) {
+            Node<K, V> victim = tracker.victim();
+            unlink(victim);
+            evictions++;
+        }
+        return old;
+    }
+
+    /**
+     * Removes the entry with a matching key from the cache. Not counted as
+     * an eviction.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not cached
+     * @return the value previously associated with the key
+     */
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Node<K, V> node = find(key, spread(key));
+        if (node == null) {
+            throw new NoSuchElementException("Key is not cached");
+        }
+        unlink(node);
+        return node.value;
+    }
+
+    /**
+     * Returns whether or not the key is cached, without counting a hit or a
+     * miss or changing the key's recency.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return whether or not the key is cached
+     */
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return find(key, spread(key)) != null;
+    }
+
+    /**
+     * Removes every entry and resets the table to INITIAL_CAPACITY. The
+     * counters and the frequency sketch are kept.
+     */
+    public void clear() {
+        while (size > 0) {
+            unlink(tracker.victim());
+        }
+        table = new Node[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the total weight of the cached entries.
+     *
+     * @return total weight
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * Returns the number of lookups that found their key.
+     *
+     * @return hit count
+     */
+    public long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find their key.
+     *
+     * @return miss count
+     */
+    public long missCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the limits.
+     *
+     * @return eviction count
+     */
+    public long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits.
+     *
+     * @return hit rate, or 0 if there were no lookups
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return (lookups == 0) ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Mixes the high bits of the hash code into the low bits.
+     *
+     * @param key key to hash
+     * @return spread hash of the key
+     */
+    private static int spread(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * helper method that gets the index for a hash
+     *
+     * @param hash spread hash of a key
+     * @param length length of the table
+     * @return index of the hash
+     */
+    private static int findInd(int hash, int length) {
+        return (hash & 0x7FFFFFFF) % length;
+    }
+
+    /**
+     * Walks the chain a key hashes to.
+     *
+     * @param key key to search for
+     * @param hash spread hash of the key
+     * @return the key's node, or null if it is not cached
+     */
+    private Node<K, V> find(K key, int hash) {
+        Node<K, V> current = table[findInd(hash, table.length)];
+        while (current != null) {
+            if (current.hash == hash && current.key.equals(key)) {
+                return current;
+            }
+            current = current.next;
+        }
+        return null;
+    }
+
+    /**
+     * Removes a node from its chain and from the policy.
+     *
+     * @param node node to remove
+     */
+    private void unlink(Node<K, V> node) {
+        int index = findInd(node.hash, table.length);
+        if (table[index] == node) {
+            table[index] = node.next;
+        } else {
+            Node<K, V> previous = table[index];
+            while (previous.next != node) {
+                previous = previous.next;
+            }
+            previous.next = node.next;
+        }
+        tracker.onRemove(node);
+        size--;
+        weight -= node.weight;
+    }
+
+    /**
+     * Relinks every node into a new table. The policy lists are untouched.
+     *
+     * @param length new table length
+     */
+    private void resize(int length) {
+        Node<K, V>[] temp = new Node[length];
+        for (Node<K, V> bucket : table) {
+            Node<K, V> current = bucket;
+            while (current != null) {
+                Node<K, V> next = current.next;
+                int index = findInd(current.hash, length);
+                current.next = temp[index];
+                temp[index] = current;
+                current = next;
+            }
+        }
+        table = temp;
+    }
+
+    /**
+     * A cache entry, linked into its bucket's chain through next and into a
+     * policy list through before and after.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private final int hash;
+        private V value;
+        private int weight;
+        private Node<K, V> next;
+        private Node<K, V> before;
+        private Node<K, V> after;
+        private NodeList<K, V> list;
+
+        /**
+         * Creates a node.
+         *
+         * @param key key of the entry
+         * @param value value of the entry
+         * @param hash spread hash of the key
+         * @param weight weight of the entry
+         */
+        private Node(K key, V value, int hash, int weight) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes, oldest at the head. A node knows which
+     * list it is in.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static class NodeList<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+        int count;
+
+        /**
+         * Adds a node at the tail.
+         *
+         * @param node node to add
+         */
+        void addLast(Node<K, V> node) {
+            node.list = this;
+            node.before = tail;
+            node.after = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.after = node;
+            }
+            tail = node;
+            count++;
+        }
+
+        /**
+         * Removes a node that is in this list.
+         *
+         * @param node node to remove
+         */
+        void unlink(Node<K, V> node) {
+            if (node.before == null) {
+                head = node.after;
+            } else {
+                node.before.after = node.after;
+            }
+            if (node.after == null) {
+                tail = node.before;
+            } else {
+                node.after.before = node.before;
+            }
+            node.before = null;
+            node.after = null;
+            node.list = null;
+            count--;
+        }
+
+        /**
+         * Moves a node in this list to the tail.
+         *
+         * @param node node to move
+         */
+        void moveToTail(Node<K, V> node) {
+            if (tail != node) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Bookkeeping for an eviction policy.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private abstract static class Tracker<K, V> {
+
+        /**
+         * Called with the hash of every looked up or added key.
+         *
+         * @param hash spread hash of the key
+         */
+        void recordAccess(int hash) {
+        }
+
+        /**
+         * Called after a new node is added to the table.
+         *
+         * @param node the new node
+         */
+        abstract void onInsert(Node<K, V> node);
+
+        /**
+         * Called when a cached node is read or its value replaced.
+         *
+         * @param node the node
+         */
+        abstract void onHit(Node<K, V> node);
+
+        /**
+         * Called when a node leaves the cache.
+         *
+         * @param node the node
+         */
+        abstract void onRemove(Node<K, V> node);
+
+        /**
+         * Picks the next node to evict. Only called on a non-empty cache.
+         *
+         * @return node to evict
+         */
+        abstract Node<K, V> victim();
+    }
+
+    /**
+     * Least recently used: one list in access order.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class LruTracker<K, V> extends Tracker<K, V> {
+        private final NodeList<K, V> order = new NodeList<>();
+
+        @Override
+        void onInsert(Node<K, V> node) {
+            order.addLast(node);
+        }
+
+        @Override
+        void onHit(Node<K, V> node) {
+            order.moveToTail(node);
+        }
+
+        @Override
+        void onRemove(Node<K, V> node) {
+            order.unlink(node);
+        }
+
+        @Override
+        Node<K, V> victim() {
+            return order.head;
+        }
+    }
+
+    /**
+     * Least frequently used: a list of frequency buckets in increasing
+     * order, each holding the nodes with that use count in access order.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class LfuTracker<K, V> extends Tracker<K, V> {
+        private FrequencyList<K, V> lowest;
+
+        @Override
+        void onInsert(Node<K, V> node) {
+            if (lowest == null || lowest.frequency != 1) {
+                FrequencyList<K, V> first = new FrequencyList<>(1);
+                first.higher = lowest;
+                if (lowest != null) {
+                    lowest.lower = first;
+                }
+                lowest = first;
+            }
+            lowest.addLast(node);
+        }
+
+        @Override
+        void onHit(Node<K, V> node) {
+            FrequencyList<K, V> current = (FrequencyList<K, V>) node.list;
+            FrequencyList<K, V> next = current.higher;
+            if (next == null || next.frequency != current.frequency + 1) {
+                next = new FrequencyList<>(current.frequency + 1);
+                next.lower = current;
+                next.higher = current.higher;
+                if (current.higher != null) {
+                    current.higher.lower = next;
+                }
+                current.higher = next;
+            }
+            current.unlink(node);
+            next.addLast(node);
+            dropIfEmpty(current);
+        }
+
+        @Override
+        void onRemove(Node<K, V> node) {
+            FrequencyList<K, V> current = (FrequencyList<K, V>) node.list;
+            current.unlink(node);
+            dropIfEmpty(current);
+        }
+
+        @Override
+        Node<K, V> victim() {
+            return lowest.head;
+        }
+
+        /**
+         * Unlinks a frequency bucket that no longer has nodes.
+         *
+         * @param bucket bucket to check
+         */
+        private void dropIfEmpty(FrequencyList<K, V> bucket) {
+            if (bucket.count > 0) {
+                return;
+            }
+            if (bucket.lower == null) {
+                lowest = bucket.higher;
+            } else {
+                bucket.lower.higher = bucket.higher;
+            }
+            if (bucket.higher != null) {
+                bucket.higher.lower = bucket.lower;
+            }
+        }
+    }
+
+    /**
+     * The nodes with one use count, linked to the buckets for the next
+     * lower and higher counts in use.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class FrequencyList<K, V> extends NodeList<K, V> {
+        private final int frequency;
+        private FrequencyList<K, V> lower;
+        private FrequencyList<K, V> higher;
+
+        /**
+         * Creates an empty bucket.
+         *
+         * @param frequency use count of the nodes in this bucket
+         */
+        private FrequencyList(int frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    /**
+     * W-TinyLFU: an LRU window of about 1% of maxEntries in front of a
+     * segmented LRU main region (80% protected, the rest probation), with a
+     * count-min sketch deciding which entries the main region admits.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class TinyLfuTracker<K, V> extends Tracker<K, V> {
+        private final NodeList<K, V> window = new NodeList<>();
+        private final NodeList<K, V> probation = new NodeList<>();
+        private final NodeList<K, V> protectedList = new NodeList<>();
+        private final int windowMax;
+        private final int protectedMax;
+        private final FrequencySketch sketch;
+
+        /**
+         * Creates the tracker.
+         *
+         * @param maxEntries maximum number of cache entries
+         */
+        private TinyLfuTracker(int maxEntries) {
+            windowMax = Math.max(1, maxEntries / 100);
+            protectedMax = (int) ((maxEntries - windowMax) * 0.8);
+            sketch = new FrequencySketch(maxEntries);
+        }
+
+        @Override
+        void recordAccess(int hash) {
+            sketch.increment(hash);
+        }
+
+        @Override
+        void onInsert(Node<K, V> node) {
+            window.addLast(node);
+            if (window.count > windowMax) {
+                probation.addLast(removeHead(window));
+            }
+        }
+
+        @Override
+        void onHit(Node<K, V> node) {
+            if (node.list == probation) {
+                probation.unlink(node);
+                protectedList.addLast(node);
+                if (protectedList.count > protectedMax) {
+                    probation.addLast(removeHead(protectedList));
+                }
+            } else {
+                node.list.moveToTail(node);
+            }
+        }
+
+        @Override
+        void onRemove(Node<K, V> node) {
+            node.list.unlink(node);
+        }
+
+        /**
+         * Picks between the newest entry to leave the window, at the tail of
+         * probation, and the least recently used probation entry at its
+         * head, keeping whichever the sketch says is used more often. Ties
+         * evict the newcomer.
+         *
+         * @return node to evict
+         */
+        @Override
+        Node<K, V> victim() {
+            Node<K, V> candidate = probation.tail;
+            Node<K, V> victim = probation.head;
+            if (candidate == null) {
+                return (protectedList.head != null) ? protectedList.head
+                        : window.head;
+            }
+            if (candidate == victim) {
+                return candidate;
+            }
+            return (sketch.frequency(candidate.hash)
+                    > sketch.frequency(victim.hash)) ? victim : candidate;
+        }
+
+        /**
+         * Unlinks and returns the head of a list.
+         *
+         * @param list a non-empty list
+         * @return the former head
+         */
+        private Node<K, V> removeHead(NodeList<K, V> list) {
+            Node<K, V> head = list.head;
+            list.unlink(head);
+            return head;
+        }
+    }
+
+    /**
+     * A count-min sketch of 4 bit counters, 4 rows deep, that estimates how
+     * often each hash was seen recently. After 10 increments per counter
+     * width, every counter is halved so that old accesses count for less.
+     */
+    private static final class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xb3f2cc5b,
+            0x6b43a9b5, 0x0c1fcb8b};
+        private final byte[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        /**
+         * Creates a sketch sized for the given number of entries.
+         *
+         * @param entries expected number of distinct cached entries
+         */
+        private FrequencySketch(int entries) {
+            int width = Integer.highestOneBit(
+                    Math.max(16, Math.min(entries, 1 << 24)) - 1) << 1;
+            rows = new byte[SEEDS.length][width];
+            mask = width - 1;
+            sampleSize = 10 * width;
+        }
+
+        /**
+         * Counts one access of a hash, aging the sketch when it is due.
+         *
+         * @param hash spread hash of a key
+         */
+        private void increment(int hash) {
+            for (int i = 0; i < rows.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] < MAX_COUNT) {
+                    rows[i][index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                for (byte[] row : rows) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        /**
+         * Estimates how often a hash was seen: the smallest of its counters.
+         *
+         * @param hash spread hash of a key
+         * @return estimated recent access count
+         */
+        private int frequency(int hash) {
+            int min = MAX_COUNT;
+            for (int i = 0; i < rows.length; i++) {
+                min = Math.min(min, rows[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        /**
+         * Picks a hash's counter in one row.
+         *
+         * @param hash spread hash of a key
+         * @param row row number
+         * @return counter index in that row
+         */
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable sorted set stored in a single array in Eytzinger order, for
+ * data that is built once and then only searched.
+ *
+ * The array is the tree a binary search walks, laid out level by level: the
+ * root at index 1 and the children of k at 2k and 2k + 1 (index 0 is not
+ * used). The first levels of every search share the same few cache lines,
+ * and the hardware prefetcher sees the next level coming, instead of
+ * chasing pointers to nodes spread over the heap like AVL.contains. The
+ * loop only uses each comparison to pick the next index, and the lower
+ * bound is recovered at the end from the bits of the final index, so the
+ * loop has no data-dependent branch of its own.
+ *
+ * Get one from AVL.toEytzinger or BST.toEytzinger. IntEytzingerSet and
+ * LongEytzingerSet store primitive keys without boxing.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class EytzingerSet<T extends Comparable<? super T>> {
+
+    private final Object[] keys;
+
+    /**
+     * Lays out sorted data in Eytzinger order.
+     *
+     * @param sorted the data in strictly increasing order
+     * @param size number of data in sorted to use
+     */
+    EytzingerSet(Object[] sorted, int size) {
+        keys = new Object[size + 1];
+        int k = 1;
+        while (2 * k <= size) {
+            k = 2 * k;
+        }
+        for (int i = 0; i < size; i++) {
+            keys[k] = sorted[i];
+            if (2 * k + 1 <= size) {
+                k = 2 * k + 1;
+                while (2 * k <= size) {
+                    k = 2 * k;
+                }
+            } else {
+                while ((k & 1) == 1) {
+                    k >>= 1;
+                }
+                k >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the data in the set equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data stored in the set
+     */
+    public T get(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        int k = lowerBound(data);
+        if (k == 0 || key(k).compareTo(data) != 0) {
+            throw new NoSuchElementException("Data was not found");
+        }
+        return key(k);
+    }
+
+    /**
+     * Returns whether data equal to the parameter is in the set.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return whether the data is in the set
+     */
+    public boolean contains(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        int k = lowerBound(data);
+        return k != 0 && key(k).compareTo(data) == 0;
+    }
+
+    /**
+     * Returns the smallest data in the set that is >= the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return the smallest data >= the parameter, or null if there is none
+     */
+    public T ceiling(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        int k = lowerBound(data);
+        return (k == 0) ? null : key(k);
+    }
+
+    /**
+     * Returns the number of data in the set.
+     *
+     * @return number of data in the set
+     */
+    public int size() {
+        return keys.length - 1;
+    }
+
+    /**
+     * helper method that walks down the implicit tree, going right past
+     * every key smaller than the data. The last left turn taken was at the
+     * smallest key >= the data; shifting off the trailing right turns (the
+     * low 1 bits of k) and that left turn gives its index.
+     *
+     * @param data the data being searched for
+     * @return index of the smallest key >= data, or 0 if there is none
+     */
+    private int lowerBound(T data) {
+        int k = 1;
+        while (k < keys.length) {
+            k = 2 * k + (key(k).compareTo(data) < 0 ? 1 : 0);
+        }
+        return k >> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /**
+     * Returns the key at an index.
+     *
+     * @param k index of the key
+     * @return the key
+     */
+    private T key(int k) {
+        return (T) keys[k];
+    }
+}
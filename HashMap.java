@@ -1,11 +1,36 @@
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Your implementation of HashMap.
- * 
+ *
+ * Chains that reach TREEIFY_THRESHOLD entries are indexed by an AVL tree
+ * (a tree bin), so keys that all hash to one bucket still cost O(log n) to
+ * find instead of O(n). This only happens when every key in the chain is of
+ * the same Comparable class and no two of them compare as equal, and the
+ * tree is dropped again once the bucket shrinks to UNTREEIFY_THRESHOLD
+ * entries or a key that compares equal to another without being equal to
+ * it is put. Keys found through the tree are still confirmed with equals.
+ * The chain itself is always kept.
+ *
+ * A HashStrategy decides how hash codes are spread and turned into indexes.
+ * The default, HashStrategy.MODULO, keeps the original 2 * n + 1 tables.
+ *
+ * Metrics are off by default. enableMetrics starts counting probes and
+ * resizes in a HashMapMetrics; while they are off, the only cost is a null
+ * check per operation.
+ *
  * @author Carson Duerr
  * @userid cduerr3
  * @GTID 903186923
@@ -13,11 +38,16 @@ import java.util.HashSet;
  */
 public class HashMap<K, V> {
 
-    // DO NOT MODIFY OR ADD NEW GLOBAL/INSTANCE VARIABLES
     public static final int INITIAL_CAPACITY = 11;
     public static final double MAX_LOAD_FACTOR = 0.67;
+    public static final int TREEIFY_THRESHOLD = 8;
+    public static final int UNTREEIFY_THRESHOLD = 6;
     private MapEntry<K, V>[] table;
+    private AVL<BinKey<K, V>>[] trees;
     private int size;
+    private int modCount;
+    private final HashStrategy strategy;
+    private HashMapMetrics metrics;
 
     /**
      * Creates a hash map with no entries. The backing array should have an
@@ -26,8 +56,7 @@ public class HashMap<K, V> {
      * Use constructor chaining.
      */
     public HashMap() {
-        table = new MapEntry[INITIAL_CAPACITY];
-        size = 0;
+        this(INITIAL_CAPACITY);
     }
 
     /**
@@ -39,7 +68,28 @@ public class HashMap<K, V> {
      * @param initialCapacity initial capacity of the backing array
      */
     public HashMap(int initialCapacity) {
-        table = new MapEntry[initialCapacity];
+        this(initialCapacity, HashStrategy.MODULO);
+    }
+
+    /**
+     * Creates a hash map with no entries that indexes its table with the
+     * given strategy. If the strategy uses power of two tables, the initial
+     * capacity is rounded up to a power of two.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param strategy how hash codes are spread and turned into indexes
+     * @throws IllegalArgumentException if initialCapacity is non-positive or
+     * strategy is null
+     */
+    public HashMap(int initialCapacity, HashStrategy strategy) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("Strategy cannot be null");
+        }
+        this.strategy = strategy;
+        table = new MapEntry[tableLength(initialCapacity)];
         size = 0;
     }
 
@@ -65,7 +115,8 @@ public class HashMap<K, V> {
      * warning, be careful about using integer division in the LF calculation!
      *
      * When regrowing, resize the length of the backing table to
-     * 2 * old length + 1. You must use the resizeBackingTable method to do so.
+     * 2 * old length + 1, or to 2 * old length if the strategy uses power of
+     * two tables. You must use the resizeBackingTable method to do so.
      *
      * Return null if the key was not already in the map. If it was in the map,
      * return the old value associated with it.
@@ -82,29 +133,62 @@ public class HashMap<K, V> {
         }
         double loadFactor = ((size + 1.0) / (table.length * 1.0));
         if (loadFactor > MAX_LOAD_FACTOR) {
-            resizeBackingTable(2 * table.length + 1);
+            resizeBackingTable(strategy.powerOfTwo() ? 2 * table.length
+                    : 2 * table.length + 1);
         }
         int index = findInd(key);
-        if (table[index] == null) {
-            table[index] = new MapEntry<K, V>(key, value);
-            size++;
-        } else {
-            MapEntry current = table[index];
+        if (metrics != null) {
+            metrics.recordProbes(countProbes(key, index));
+        }
+        AVL<BinKey<K, V>> tree = findBin(index);
+        if (tree != null && !binAccepts(tree, key)) {
+            trees[index] = null;
+            tree = null;
+        }
+        if (tree != null) {
+            BinKey<K, V> probe = new BinKey<>(key, null);
+            if (!tree.contains(probe)) {
+                BinKey<K, V> first =
+                        tree.get(new BinKey<>(table[index].getKey(), null));
+                table[index] = new MapEntry<K, V>(key, value, table[index]);
+                BinKey<K, V> added = new BinKey<>(key, table[index]);
+                added.next = first;
+                first.prev = added;
+                tree.add(added);
+                size++;
+                modCount++;
+                return null;
+            }
+            MapEntry<K, V> current = tree.get(probe).entry;
             if (current.getKey().equals(key)) {
-                V temp = (V) current.getValue();
+                V temp = current.getValue();
                 current.setValue(value);
                 return temp;
             }
-            while (current.getNext() != null) {
-                if (current.getKey().equals(key)) {
-                    V temp = (V) current.getValue();
-                    current.setValue(value);
-                    return temp;
-                }
-                current = current.getNext();
+            trees[index] = null;
+        }
+        MapEntry<K, V> current = table[index];
+        MapEntry<K, V> last = null;
+        int length = 0;
+        while (current != null) {
+            if (current.getKey().equals(key)) {
+                V temp = current.getValue();
+                current.setValue(value);
+                return temp;
             }
-            current.setNext(new MapEntry(key, value));
-            size++;
+            last = current;
+            current = current.getNext();
+            length++;
+        }
+        if (last == null) {
+            table[index] = new MapEntry<K, V>(key, value);
+        } else {
+            last.setNext(new MapEntry<K, V>(key, value));
+        }
+        size++;
+        modCount++;
+        if (length + 1 == TREEIFY_THRESHOLD) {
+            treeify(index);
         }
         return null;
     }
@@ -116,7 +200,34 @@ public class HashMap<K, V> {
      * @return index of requested key
      */
     private int findInd(K key) {
-        return key.hashCode() % table.length;
+        return findInd(key, table.length);
+    }
+
+    /**
+     * helper method that gets the index for a key in a table of the given
+     * length, using the map's strategy
+     *
+     * @param key key to find the index of
+     * @param length length of the table
+     * @return index of requested key
+     */
+    private int findInd(K key, int length) {
+        return strategy.index(strategy.spread(key.hashCode()), length);
+    }
+
+    /**
+     * Rounds a requested table length up to a power of two if the strategy
+     * needs one.
+     *
+     * @param length requested length
+     * @return length the table should actually have
+     */
+    private int tableLength(int length) {
+        if (!strategy.powerOfTwo()) {
+            return length;
+        }
+        int result = Integer.highestOneBit(length);
+        return (result == length) ? result : result << 1;
     }
 
     /**
@@ -142,16 +253,20 @@ public class HashMap<K, V> {
      * duplicates. This matters especially for external chaining since it can
      * cause the performance of resizing to go from linear to quadratic time.
      *
+     * If the strategy uses power of two tables, the length is rounded up to
+     * the next power of two.
+     *
      * @param length new length of the backing table
      * @throws IllegalArgumentException if length is non-positive or less than
      * the number of items in the hash map.
      */
     public void resizeBackingTable(int length) {
-        if (length < 0 || length < size) {
+        if (length <= 0 || length < size) {
             throw new IllegalArgumentException("Length cannot be negative"
                     + " or less than size");
         }
-        MapEntry<K, V>[] temp = new MapEntry[length];
+        long start = (metrics == null) ? 0 : System.nanoTime();
+        MapEntry<K, V>[] temp = new MapEntry[tableLength(length)];
         for (MapEntry i : table) {
             if (i != null) {
                 resizePut((K) i.getKey(), (V) i.getValue(), temp);
@@ -164,6 +279,21 @@ public class HashMap<K, V> {
             }
         }
         table = temp;
+        trees = null;
+        modCount++;
+        for (int i = 0; i < table.length; i++) {
+            int chain = 0;
+            for (MapEntry<K, V> current = table[i]; current != null;
+                    current = current.getNext()) {
+                chain++;
+            }
+            if (chain >= TREEIFY_THRESHOLD) {
+                treeify(i);
+            }
+        }
+        if (metrics != null) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
     }
 
     /**
@@ -174,7 +304,7 @@ public class HashMap<K, V> {
      * @param t table
      */
     private void resizePut(K key, V val,  MapEntry<K, V>[] t) {
-        int index = key.hashCode() % t.length;
+        int index = findInd(key, t.length);
         if (t[index] == null) {
             t[index] = new MapEntry<K, V>(key, val);
         } else {
@@ -195,47 +325,61 @@ public class HashMap<K, V> {
             throw new IllegalArgumentException("Key cannot be null");
         }
         int index = findInd(key);
-        if (table[index] == null) {
-            throw new java.util.NoSuchElementException("Key does not exist");
-        } else {
-            MapEntry current = table[index];
+        if (metrics != null) {
+            metrics.recordProbes(countProbes(key, index));
+        }
+        AVL<BinKey<K, V>> tree = findBin(index);
+        if (tree != null && binAccepts(tree, key)) {
+            BinKey<K, V> found = findBinKey(tree, key);
+            if (found == null) {
+                throw new java.util.NoSuchElementException("Key does not"
+                        + " exist");
+            }
+            tree.remove(found);
+            if (tree.size() <= UNTREEIFY_THRESHOLD) {
+                trees[index] = null;
+            }
+            unlink(index, (found.prev == null) ? null : found.prev.entry,
+                    found.entry);
+            if (found.prev != null) {
+                found.prev.next = found.next;
+            }
+            if (found.next != null) {
+                found.next.prev = found.prev;
+            }
+            size--;
+            modCount++;
+            return found.entry.getValue();
+        }
+        MapEntry<K, V> previous = null;
+        MapEntry<K, V> current = table[index];
+        while (current != null) {
             if (current.getKey().equals(key)) {
-                V temp = (V) current.getValue();
-                if (current.getNext() == null) {
-                    table[index] = null;
-                } else {
-                    table[index]  = current.getNext();
-                }
+                unlink(index, previous, current);
                 size--;
-                return temp;
-            } else if (current.getNext() == null) {
-                throw new
-                        java.util.NoSuchElementException("Key does not exist");
-            } else {
-                while (current.getNext().getNext() != null) {
-                    if (current.getNext().getKey().equals(key)) {
-                        V temp = (V) current.getNext().getValue();
-                        current.setNext(current.getNext().getNext());
-                        size--;
-                        return temp;
-                    }
-                    current = current.getNext();
-                }
-                if (current.getNext()
-                        != null && current.getNext().getKey().equals(key)) {
-                    V temp = (V) current.getNext().getValue();
-                    current.setNext(current.getNext().getNext());
-                    size--;
-                    return temp;
-                } else if (current.getKey().equals(key)) {
-                    V temp = (V) current.getValue();
-                    current.setNext(null);
-                    return temp;
-                } else {
-                    throw new java.util.NoSuchElementException("Key"
-                            + " does not exist");
-                }
+                modCount++;
+                return current.getValue();
             }
+            previous = current;
+            current = current.getNext();
+        }
+        throw new java.util.NoSuchElementException("Key does not exist");
+    }
+
+    /**
+     * Unlinks an entry from its chain, given the entry before it.
+     *
+     * @param index index of the chain
+     * @param previous entry before the one to unlink, or null if it is the
+     * front of the chain
+     * @param entry entry to unlink
+     */
+    private void unlink(int index, MapEntry<K, V> previous,
+                        MapEntry<K, V> entry) {
+        if (previous == null) {
+            table[index] = entry.getNext();
+        } else {
+            previous.setNext(entry.getNext());
         }
     }
 
@@ -252,21 +396,14 @@ public class HashMap<K, V> {
             throw new IllegalArgumentException("Key cannot be null");
         }
         int index = findInd(key);
-        if (table[index] == null) {
-            throw new java.util.NoSuchElementException("Key does not exist");
-        } else {
-            MapEntry current = table[index];
-            if (current.getKey().equals(key)) {
-                return (V) current.getValue();
-            }
-            while (current != null) {
-                if (current.getKey().equals(key)) {
-                    return (V) current.getValue();
-                }
-                current = current.getNext();
-            }
+        if (metrics != null) {
+            metrics.recordProbes(countProbes(key, index));
+        }
+        MapEntry<K, V> entry = findEntry(key, index);
+        if (entry == null) {
             throw new java.util.NoSuchElementException("Key does not exist");
         }
+        return entry.getValue();
     }
 
     /**
@@ -281,79 +418,329 @@ public class HashMap<K, V> {
             throw new IllegalArgumentException("Key cannot be null");
         }
         int index = findInd(key);
-        if (table[index] == null) {
-            return false;
-        } else {
-            MapEntry current = table[index];
+        if (metrics != null) {
+            metrics.recordProbes(countProbes(key, index));
+        }
+        return findEntry(key, index) != null;
+    }
+
+    /**
+     * Counts the keys a lookup in a bucket compares, for metrics. Only
+     * called while metrics are enabled, so the lookups themselves stay free
+     * of counting.
+     *
+     * @param key key being looked up
+     * @param index index of the key's bucket
+     * @return number of probes
+     */
+    private int countProbes(K key, int index) {
+        AVL<BinKey<K, V>> tree = findBin(index);
+        if (tree != null && binAccepts(tree, key)) {
+            return tree.getRoot().getHeight() + 1;
+        }
+        int count = 0;
+        for (MapEntry<K, V> current = table[index]; current != null;
+                current = current.getNext()) {
+            count++;
             if (current.getKey().equals(key)) {
-                return true;
+                break;
             }
-            while (current != null) {
-                if (current.getKey().equals(key)) {
-                    return true;
-                }
-                current = current.getNext();
+        }
+        return count;
+    }
+
+    /**
+     * Finds the entry for a key, using the bucket's tree if it has one and
+     * walking the chain otherwise.
+     *
+     * @param key key to search for
+     * @param index index of the key's bucket
+     * @return the entry, or null if the key is not in the map
+     */
+    private MapEntry<K, V> findEntry(K key, int index) {
+        AVL<BinKey<K, V>> tree = findBin(index);
+        if (tree != null && binAccepts(tree, key)) {
+            BinKey<K, V> found = findBinKey(tree, key);
+            return (found == null) ? null : found.entry;
+        }
+        MapEntry<K, V> current = table[index];
+        while (current != null) {
+            if (current.getKey().equals(key)) {
+                return current;
             }
-            return false;
+            current = current.getNext();
+        }
+        return null;
+    }
+
+    /**
+     * Finds the bin key for a key in a tree bin. The tree only knows the
+     * keys' order, so a hit is confirmed with equals.
+     *
+     * @param tree the bucket's tree, accepting the key's class
+     * @param key key to search for
+     * @return the bin key, or null if the key is not in the bin
+     */
+    private BinKey<K, V> findBinKey(AVL<BinKey<K, V>> tree, K key) {
+        BinKey<K, V> probe = new BinKey<>(key, null);
+        if (!tree.contains(probe)) {
+            return null;
         }
+        BinKey<K, V> found = tree.get(probe);
+        return found.key.equals(key) ? found : null;
+    }
+
+    /**
+     * Returns the tree for a bucket.
+     *
+     * @param index index of the bucket
+     * @return the bucket's tree, or null if the bucket is a plain chain
+     */
+    private AVL<BinKey<K, V>> findBin(int index) {
+        return (trees == null) ? null : trees[index];
+    }
+
+    /**
+     * Returns whether a key can be looked up in a tree bin. Tree bins only
+     * hold keys of a single Comparable class, so a key of another class has
+     * to go through the chain.
+     *
+     * @param tree a non-empty tree bin
+     * @param key key to check
+     * @return true if the key has the same class as the bin's keys
+     */
+    private boolean binAccepts(AVL<BinKey<K, V>> tree, K key) {
+        return tree.getRoot().getData().key.getClass() == key.getClass();
+    }
+
+    /**
+     * Builds a tree over the chain at the given index, if every key in the
+     * chain is of the same Comparable class. Otherwise the chain is left as
+     * is, since there is no order to build the tree with. The same goes if
+     * two keys in the chain compare as equal, since the tree could only
+     * hold one of them.
+     *
+     * The chain itself is kept, so iteration, resizing and getTable see the
+     * same entries either way. The tree only indexes them, and links its
+     * bin keys in chain order so a removal can unlink its entry without
+     * walking the chain.
+     *
+     * @param index index of the chain
+     */
+    private void treeify(int index) {
+        Class<?> keyClass = table[index].getKey().getClass();
+        if (!Comparable.class.isAssignableFrom(keyClass)) {
+            return;
+        }
+        for (MapEntry<K, V> current = table[index]; current != null;
+                current = current.getNext()) {
+            if (current.getKey().getClass() != keyClass) {
+                return;
+            }
+        }
+        AVL<BinKey<K, V>> tree = new AVL<>();
+        BinKey<K, V> previous = null;
+        int count = 0;
+        for (MapEntry<K, V> current = table[index]; current != null;
+                current = current.getNext()) {
+            BinKey<K, V> binKey = new BinKey<>(current.getKey(), current);
+            tree.add(binKey);
+            if (tree.size() != ++count) {
+                return;
+            }
+            binKey.prev = previous;
+            if (previous != null) {
+                previous.next = binKey;
+            }
+            previous = binKey;
+        }
+        if (trees == null) {
+            trees = new AVL[table.length];
+        }
+        trees[index] = tree;
     }
 
     /**
      * Returns a Set view of the keys contained in this map. The Set view is
      * used instead of a List view because keys are unique in a HashMap, which
      * is a property that elements of Sets also share.
-     * 
-     * Use java.util.HashSet.
+     *
+     * The view is live: it reads the table directly instead of copying the
+     * keys, so it reflects later changes to the map. Removing through the
+     * view or its iterator removes the entry from the map. Iterators are
+     * fail-fast and throw ConcurrentModificationException if the map is
+     * structurally changed other than through the iterator.
      *
      * @return set of keys in this map
      */
     public Set<K> keySet() {
-        Set<K> set = new HashSet<K>(table.length, (float) MAX_LOAD_FACTOR);
-        for (MapEntry i : table) {
-            if (i != null) {
-                set.add((K) i.getKey());
-                MapEntry current = i.getNext();
-                while (current != null) {
-                    set.add((K) current.getKey());
-                    current = current.getNext();
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new TableIterator<>(MapEntry::getKey);
+            }
+
+            @Override
+            public Spliterator<K> spliterator() {
+                return new TableSpliterator<>(MapEntry::getKey,
+                        Spliterator.DISTINCT);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o != null && containsKey((K) o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!contains(o)) {
+                    return false;
                 }
+                HashMap.this.remove((K) o);
+                return true;
             }
-        }
-        return set;
+
+            @Override
+            public void clear() {
+                HashMap.this.clear();
+            }
+        };
     }
 
     /**
      * Returns a List view of the values contained in this map.
-     * 
-     * Use java.util.ArrayList or java.util.LinkedList.
      *
-     * You should iterate over the table in order of increasing index, and
-     * iterate over each chain from front to back. Add entries to the List in
-     * the order in which they are traversed.
+     * The view is live and iterates over the table in order of increasing
+     * index, and over each chain from front to back. Iterators are fail-fast
+     * and support remove. Getting a value by index walks the table, so it is
+     * O(n); iterate instead. indexOf, lastIndexOf, contains, equals and
+     * hashCode make a single pass. Clearing the view clears the map.
      *
      * @return list of values in this map
      */
     public List<V> values() {
-        ArrayList<V> list = new ArrayList<>();
-        for (MapEntry i : table) {
-            if (i != null) {
-                list.add((V) i.getValue());
-                MapEntry current = i.getNext();
-                while (current != null) {
-                    list.add((V) current.getValue());
-                    current = current.getNext();
+        return new AbstractList<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new TableIterator<>(MapEntry::getValue);
+            }
+
+            @Override
+            public ListIterator<V> listIterator(int index) {
+                return new ValueIterator(index);
+            }
+
+            @Override
+            public int lastIndexOf(Object o) {
+                int last = -1;
+                int i = 0;
+                for (V value : this) {
+                    if (value.equals(o)) {
+                        last = i;
+                    }
+                    i++;
                 }
+                return last;
+            }
+
+            @Override
+            public void clear() {
+                HashMap.this.clear();
+            }
+
+            @Override
+            public Spliterator<V> spliterator() {
+                return new TableSpliterator<>(MapEntry::getValue,
+                        Spliterator.ORDERED);
+            }
+
+            @Override
+            public V get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index is out of"
+                            + " bounds");
+                }
+                Iterator<V> iterator = iterator();
+                for (int i = 0; i < index; i++) {
+                    iterator.next();
+                }
+                return iterator.next();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns a Set view of the entries contained in this map. The entries
+     * are the map's own MapEntry objects, so setting an entry's value
+     * updates the map. Like keySet, the view is live and its iterators are
+     * fail-fast and support remove.
+     *
+     * @return set of entries in this map
+     */
+    public Set<MapEntry<K, V>> entrySet() {
+        return new AbstractSet<MapEntry<K, V>>() {
+            @Override
+            public Iterator<MapEntry<K, V>> iterator() {
+                return new TableIterator<>(Function.identity());
+            }
+
+            @Override
+            public Spliterator<MapEntry<K, V>> spliterator() {
+                return new TableSpliterator<>(Function.identity(),
+                        Spliterator.DISTINCT);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Calls the action on every key-value pair, walking the table in place.
+     * Allocates nothing.
+     *
+     * @param action action to perform on each pair
+     * @throws IllegalArgumentException if action is null
+     * @throws java.util.ConcurrentModificationException if the action
+     * structurally changes the map
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        int expected = modCount;
+        MapEntry<K, V>[] t = table;
+        for (MapEntry<K, V> i : t) {
+            for (MapEntry<K, V> current = i; current != null;
+                    current = current.getNext()) {
+                action.accept(current.getKey(), current.getValue());
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
             }
         }
-        return list;
     }
 
     /**
      * Clears the table and resets it to a new table of length INITIAL_CAPACITY.
      */
     public void clear() {
-        table = new MapEntry[INITIAL_CAPACITY];
+        table = new MapEntry[tableLength(INITIAL_CAPACITY)];
+        trees = null;
         size = 0;
+        modCount++;
     }
 
     /**
@@ -369,6 +756,76 @@ public class HashMap<K, V> {
         return size;
     }
     
+    /**
+     * Starts collecting metrics, keeping the current ones if metrics are
+     * already enabled.
+     *
+     * @return the metrics being collected
+     */
+    public HashMapMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new HashMapMetrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops collecting metrics and drops the ones collected so far.
+     */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Returns the metrics being collected.
+     *
+     * @return the metrics, or null if they are disabled
+     */
+    public HashMapMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Counts the buckets by chain length. Walks the whole table, but works
+     * whether or not metrics are enabled.
+     *
+     * @return array whose element i is the number of buckets holding exactly
+     * i entries, one element longer than the longest chain
+     */
+    public int[] chainLengthHistogram() {
+        int[] histogram = new int[1];
+        for (MapEntry<K, V> i : table) {
+            int chain = 0;
+            for (MapEntry<K, V> current = i; current != null;
+                    current = current.getNext()) {
+                chain++;
+            }
+            if (chain >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, chain + 1);
+            }
+            histogram[chain]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the current load factor, size / table length.
+     *
+     * @return the load factor
+     */
+    public double loadFactor() {
+        return (double) size / table.length;
+    }
+
+    /**
+     * Returns the strategy this map uses to index its table.
+     *
+     * @return the map's hash strategy
+     */
+    public HashStrategy getStrategy() {
+        return strategy;
+    }
+
     /**
      * Returns the backing table of the HashMap.
      *
@@ -382,4 +839,357 @@ public class HashMap<K, V> {
         return table;
     }
 
+    /**
+     * A key in a tree bin, pointing at the key's entry in the chain. The
+     * bin keys of a bucket are also linked to each other in chain order, so
+     * the entry before a removed one is found in O(1).
+     *
+     * Orders by hash code first, so most comparisons are a single int
+     * compare, and by the keys' own compareTo when hash codes tie. This is
+     * what keeps a bin of keys with equal hash codes at O(log n).
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class BinKey<K, V>
+            implements Comparable<BinKey<K, V>> {
+        private final K key;
+        private final int hash;
+        private final MapEntry<K, V> entry;
+        private BinKey<K, V> prev;
+        private BinKey<K, V> next;
+
+        /**
+         * Creates a bin key.
+         *
+         * @param key key of the entry
+         * @param entry entry in the chain, or null for a lookup probe
+         */
+        private BinKey(K key, MapEntry<K, V> entry) {
+            this.key = key;
+            this.hash = key.hashCode();
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(BinKey<K, V> other) {
+            if (hash != other.hash) {
+                return (hash < other.hash) ? -1 : 1;
+            }
+            return ((Comparable<Object>) key).compareTo(other.key);
+        }
+    }
+
+    /**
+     * Iterator over the entries of the table, in order of increasing index
+     * and from the front to the back of each chain.
+     *
+     * @param <E> type of the elements produced from each entry
+     */
+    private final class TableIterator<E> implements Iterator<E> {
+        private final Function<MapEntry<K, V>, E> extract;
+        private int expected = modCount;
+        private int index;
+        private MapEntry<K, V> next;
+        private MapEntry<K, V> last;
+
+        /**
+         * Creates an iterator positioned before the first entry.
+         *
+         * @param extract produces an element from an entry
+         */
+        private TableIterator(Function<MapEntry<K, V>, E> extract) {
+            this.extract = extract;
+            advance();
+        }
+
+        /**
+         * Moves next to the front of the next non-empty bucket.
+         */
+        private void advance() {
+            while (next == null && index < table.length) {
+                next = table[index++];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException("No more entries");
+            }
+            last = next;
+            next = next.getNext();
+            advance();
+            return extract.apply(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("next has not been called");
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            HashMap.this.remove(last.getKey());
+            last = null;
+            expected = modCount;
+        }
+    }
+
+    /**
+     * List iterator over the values, in the same order as TableIterator.
+     * Moving forward costs the same as TableIterator. Chains only link
+     * forward, so moving backward walks again from the start of the table
+     * and is O(n). Values can be removed but not set or added.
+     */
+    private final class ValueIterator implements ListIterator<V> {
+        private TableIterator<V> forward;
+        private int cursor;
+        private V pending;
+        private boolean hasPending;
+        private boolean movedForward;
+
+        /**
+         * Creates an iterator positioned before the value at an index.
+         *
+         * @param index index of the first value next returns
+         * @throws IndexOutOfBoundsException if index is negative or greater
+         * than size
+         */
+        private ValueIterator(int index) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index is out of"
+                        + " bounds");
+            }
+            seek(index);
+        }
+
+        /**
+         * Restarts the walk and moves it to just before an index.
+         *
+         * @param index index to move to
+         */
+        private void seek(int index) {
+            forward = new TableIterator<>(MapEntry::getValue);
+            for (int i = 0; i < index; i++) {
+                forward.next();
+            }
+            cursor = index;
+            hasPending = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasPending || forward.hasNext();
+        }
+
+        @Override
+        public V next() {
+            V value;
+            if (hasPending) {
+                value = pending;
+                hasPending = false;
+            } else {
+                value = forward.next();
+            }
+            cursor++;
+            movedForward = true;
+            return value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        /**
+         * Returns the value before the cursor. The walk is left just past
+         * that value, so remove can go through it, and the value is kept
+         * for a following call to next.
+         *
+         * @return the previous value
+         */
+        @Override
+        public V previous() {
+            if (cursor == 0) {
+                throw new NoSuchElementException("No previous value");
+            }
+            seek(cursor - 1);
+            pending = forward.next();
+            hasPending = true;
+            movedForward = false;
+            return pending;
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void remove() {
+            forward.remove();
+            if (movedForward) {
+                cursor--;
+            }
+            hasPending = false;
+        }
+
+        @Override
+        public void set(V value) {
+            throw new UnsupportedOperationException("Values cannot be set"
+                    + " through the view");
+        }
+
+        @Override
+        public void add(V value) {
+            throw new UnsupportedOperationException("Values cannot be added"
+                    + " through the view");
+        }
+    }
+
+    /**
+     * Spliterator over a range of table indexes. Splitting hands the lower
+     * half of the remaining range to a new spliterator, so parallel streams
+     * scan disjoint parts of the table in place.
+     *
+     * The spliterator is late-binding: it reads the table and modCount when
+     * it is first traversed, split or sized, not when it is created, and
+     * keeps reading that table. Changes made after binding are detected
+     * before any entry is read and throw ConcurrentModificationException.
+     *
+     * @param <E> type of the elements produced from each entry
+     */
+    private final class TableSpliterator<E> implements Spliterator<E> {
+        private final Function<MapEntry<K, V>, E> extract;
+        private final int characteristics;
+        private MapEntry<K, V>[] bound;
+        private int expected;
+        private int index;
+        private int end;
+        private MapEntry<K, V> current;
+
+        /**
+         * Creates a spliterator over the whole table, bound on first use.
+         *
+         * @param extract produces an element from an entry
+         * @param characteristics characteristics besides NONNULL
+         */
+        private TableSpliterator(Function<MapEntry<K, V>, E> extract,
+                                 int characteristics) {
+            this(extract, null, 0, -1, 0, characteristics);
+        }
+
+        /**
+         * Creates a spliterator over table indexes [index, end) of an
+         * already bound table.
+         *
+         * @param extract produces an element from an entry
+         * @param bound table to read, or null to bind on first use
+         * @param index first table index
+         * @param end one past the last table index, or -1 if not bound
+         * @param expected modCount the table was bound at
+         * @param characteristics characteristics besides NONNULL
+         */
+        private TableSpliterator(Function<MapEntry<K, V>, E> extract,
+                                 MapEntry<K, V>[] bound, int index, int end,
+                                 int expected, int characteristics) {
+            this.extract = extract;
+            this.bound = bound;
+            this.index = index;
+            this.end = end;
+            this.expected = expected;
+            this.characteristics = characteristics | Spliterator.NONNULL;
+        }
+
+        /**
+         * Binds the table and modCount if this is the first use.
+         *
+         * @return one past the last table index
+         */
+        private int bind() {
+            if (end < 0) {
+                bound = table;
+                expected = modCount;
+                end = bound.length;
+            }
+            return end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            int hi = bind();
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            while (current == null && index < hi) {
+                current = bound[index++];
+            }
+            if (current == null) {
+                return false;
+            }
+            MapEntry<K, V> entry = current;
+            current = current.getNext();
+            action.accept(extract.apply(entry));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            int hi = bind();
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            for (MapEntry<K, V> e = current; e != null; e = e.getNext()) {
+                action.accept(extract.apply(e));
+            }
+            current = null;
+            for (; index < hi; index++) {
+                for (MapEntry<K, V> e = bound[index]; e != null;
+                        e = e.getNext()) {
+                    action.accept(extract.apply(e));
+                }
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (index + bind()) >>> 1;
+            if (current != null || mid <= index) {
+                return null;
+            }
+            TableSpliterator<E> prefix = new TableSpliterator<>(extract,
+                    bound, index, mid, expected, characteristics);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            int hi = bind();
+            return (long) size * (hi - index) / Math.max(1, bound.length);
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,553 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Side by side timing of the hash map implementations.
+ *
+ * Run with {@code java HashMapBenchmark [name]}, where name picks a single
+ * benchmark. With no name every benchmark is run. Each timing is the best of
+ * several rounds after a warm up round, so the JIT has compiled the code
+ * being measured.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class HashMapBenchmark {
+
+    private static final int ENTRIES = 1 << 20;
+    private static final int ROUNDS = 5;
+    private static final double[] LOAD_FACTORS = {0.5, 0.6, 0.7, 0.8, 0.9};
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int CONCURRENT_KEYS = 1 << 16;
+    private static final long CONCURRENT_MILLIS = 1000;
+    private static final int COLLISION_BITS = 13;
+    private static final int INITIAL_LENGTH = 11;
+
+    /**
+     * Entry point.
+     *
+     * @param args optional name of a single benchmark to run
+     */
+    public static void main(String[] args) {
+        String name = (args.length == 0) ? "all" : args[0];
+        if (name.equals("all") || name.equals("probing")) {
+            probing();
+        }
+        if (name.equals("all") || name.equals("concurrent")) {
+            concurrent();
+        }
+        if (name.equals("all") || name.equals("growth")) {
+            growth();
+        }
+        if (name.equals("all") || name.equals("collision")) {
+            collision();
+        }
+        if (name.equals("all") || name.equals("strategy")) {
+            strategy();
+        }
+        if (name.equals("all") || name.equals("metrics")) {
+            metrics();
+        }
+    }
+
+    /**
+     * Compares the chaining HashMap with RobinHoodHashMap at load factors from
+     * 0.5 to 0.9.
+     *
+     * Both maps are filled and then resized to the exact length that gives
+     * the target load factor, since resizeBackingTable disregards the max load
+     * factor. Lookups are half hits and half misses.
+     */
+    private static void probing() {
+        Integer[] present = randomKeys(ENTRIES, 1);
+        Integer[] absent = randomKeys(ENTRIES, 2);
+        System.out.println("probing: ns per get, " + ENTRIES + " entries");
+        System.out.println("load  chaining  robinhood");
+        for (double lf : LOAD_FACTORS) {
+            int length = (int) (ENTRIES / lf);
+            HashMap<Integer, Integer> chaining = new HashMap<>(length);
+            RobinHoodHashMap<Integer, Integer> robin =
+                    new RobinHoodHashMap<>(length, 0.95);
+            for (Integer key : present) {
+                chaining.put(key, key);
+                robin.put(key, key);
+            }
+            chaining.resizeBackingTable(length);
+            robin.resizeBackingTable(length);
+            long bestChaining = Long.MAX_VALUE;
+            long bestRobin = Long.MAX_VALUE;
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                int found = 0;
+                for (int i = 0; i < ENTRIES; i++) {
+                    found += chaining.containsKey(present[i]) ? 1 : 0;
+                    found += chaining.containsKey(absent[i]) ? 1 : 0;
+                }
+                long chainingTime = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < ENTRIES; i++) {
+                    found += robin.containsKey(present[i]) ? 1 : 0;
+                    found += robin.containsKey(absent[i]) ? 1 : 0;
+                }
+                long robinTime = System.nanoTime() - start;
+                check(found == 2 * ENTRIES);
+                if (round > 0) {
+                    bestChaining = Math.min(bestChaining, chainingTime);
+                    bestRobin = Math.min(bestRobin, robinTime);
+                }
+            }
+            System.out.printf("%.1f   %8.1f  %9.1f%n", lf,
+                    bestChaining / (2.0 * ENTRIES),
+                    bestRobin / (2.0 * ENTRIES));
+        }
+    }
+
+    /**
+     * Compares StripedHashMap with a HashMap behind one global lock, using a
+     * mix of 90% get and 10% put from an increasing number of threads.
+     */
+    private static void concurrent() {
+        System.out.println("concurrent: million ops per second, 90% get");
+        System.out.println("threads  locked  striped");
+        for (int threads : THREADS) {
+            HashMap<Integer, Integer> locked = new HashMap<>();
+            StripedHashMap<Integer, Integer> striped = new StripedHashMap<>();
+            for (int i = 0; i < CONCURRENT_KEYS; i++) {
+                locked.put(i, i);
+                striped.put(i, i);
+            }
+            double lockedRate = run(threads, () -> {
+                int key = ThreadLocalRandom.current().nextInt(CONCURRENT_KEYS);
+                if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                    synchronized (locked) {
+                        locked.put(key, key);
+                    }
+                } else {
+                    synchronized (locked) {
+                        check(locked.get(key) == key);
+                    }
+                }
+            });
+            double stripedRate = run(threads, () -> {
+                int key = ThreadLocalRandom.current().nextInt(CONCURRENT_KEYS);
+                if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                    striped.put(key, key);
+                } else {
+                    check(striped.get(key) == key);
+                }
+            });
+            System.out.printf("%7d  %6.1f  %7.1f%n", threads, lockedRate,
+                    stripedRate);
+        }
+    }
+
+    /**
+     * Runs an operation on several threads for CONCURRENT_MILLIS after a
+     * warm up of the same length.
+     *
+     * @param threads number of threads
+     * @param operation operation each thread repeats
+     * @return millions of operations per second over all threads
+     */
+    private static double run(int threads, Runnable operation) {
+        timed(threads, operation);
+        return timed(threads, operation) / (CONCURRENT_MILLIS * 1000.0);
+    }
+
+    /**
+     * Runs an operation on several threads for CONCURRENT_MILLIS.
+     *
+     * @param threads number of threads
+     * @param operation operation each thread repeats
+     * @return total number of operations completed
+     */
+    private static long timed(int threads, Runnable operation) {
+        LongAdder count = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 64; i++) {
+                        operation.run();
+                    }
+                    done += 64;
+                }
+                count.add(done);
+            });
+            workers[t].start();
+        }
+        deadline[0] = System.nanoTime() + CONCURRENT_MILLIS * 1000000;
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return count.sum();
+    }
+
+    /**
+     * Compares the longest single put while growing HashMap, which rehashes
+     * everything at once, and IncrementalHashMap, which migrates a few
+     * buckets per operation.
+     */
+    private static void growth() {
+        Integer[] keys = randomKeys(4 * ENTRIES, 3);
+        System.out.println("growth: put latency in microseconds, "
+                + keys.length + " puts");
+        System.out.println("map          max     p99.99   p99.9");
+        for (int round = 0; round <= 1; round++) {
+            System.gc();
+            HashMap<Integer, Integer> eager = new HashMap<>();
+            long[] eagerTimes = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                long start = System.nanoTime();
+                eager.put(keys[i], keys[i]);
+                eagerTimes[i] = System.nanoTime() - start;
+            }
+            int eagerSize = eager.size();
+            eager = null;
+            System.gc();
+            IncrementalHashMap<Integer, Integer> incremental =
+                    new IncrementalHashMap<>();
+            long[] incrementalTimes = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                long start = System.nanoTime();
+                incremental.put(keys[i], keys[i]);
+                incrementalTimes[i] = System.nanoTime() - start;
+            }
+            check(eagerSize == incremental.size());
+            if (round > 0) {
+                printLatency("HashMap", eagerTimes);
+                printLatency("Incremental", incrementalTimes);
+            }
+        }
+    }
+
+    /**
+     * Prints the maximum, 99.99th and 99.9th percentile of a set of timings.
+     * The maximum includes garbage collection pauses, so the percentiles are
+     * the steadier numbers.
+     *
+     * @param label name of the map
+     * @param times timings in nanoseconds, sorted in place
+     */
+    private static void printLatency(String label, long[] times) {
+        Arrays.sort(times);
+        System.out.printf("%-11s %8.1f %8.2f %7.2f%n", label,
+                times[times.length - 1] / 1000.0,
+                times[(int) (times.length * 0.9999)] / 1000.0,
+                times[(int) (times.length * 0.999)] / 1000.0);
+    }
+
+    /**
+     * Simulates a hash flooding attack: every key has the same hash code, so
+     * every key lands in one bucket. Compares HashMap, whose long chains turn
+     * into tree bins, with IncrementalHashMap, which only has plain chains.
+     * Keys are removed oldest first, which puts them at the back of the
+     * chain. First checks that tree bins keep keys whose compareTo ties.
+     */
+    private static void collision() {
+        tiedKeys();
+        String[] keys = collidingKeys(COLLISION_BITS);
+        System.out.println("collision: ms to put, get, then remove "
+                + keys.length + " keys with one hash code");
+        System.out.println("map          put      get   remove");
+        long[] best = new long[6];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int round = 0; round <= ROUNDS; round++) {
+            HashMap<String, Integer> treeified = new HashMap<>();
+            IncrementalHashMap<String, Integer> chained =
+                    new IncrementalHashMap<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                treeified.put(keys[i], i);
+            }
+            long t0 = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                check(treeified.get(keys[i]) == i);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                check(treeified.remove(keys[i]) == i);
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                chained.put(keys[i], i);
+            }
+            long t3 = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                check(chained.get(keys[i]) == i);
+            }
+            long t4 = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                check(chained.remove(keys[i]) == i);
+            }
+            long t5 = System.nanoTime();
+            check(treeified.size() == 0 && chained.size() == 0);
+            if (round > 0) {
+                best[0] = Math.min(best[0], t0 - start);
+                best[1] = Math.min(best[1], t1 - t0);
+                best[2] = Math.min(best[2], t2 - t1);
+                best[3] = Math.min(best[3], t3 - t2);
+                best[4] = Math.min(best[4], t4 - t3);
+                best[5] = Math.min(best[5], t5 - t4);
+            }
+        }
+        System.out.printf("%-11s %6.2f %8.2f %8.2f%n", "HashMap",
+                best[0] / 1e6, best[1] / 1e6, best[2] / 1e6);
+        System.out.printf("%-11s %6.2f %8.2f %8.2f%n", "Chained",
+                best[3] / 1e6, best[4] / 1e6, best[5] / 1e6);
+    }
+
+    /**
+     * Puts keys that share a hash code and whose compareTo ties in pairs
+     * without them being equal, which compareTo is allowed to do. The even
+     * keys go in first, so their bucket is a tree bin by the time the odd
+     * keys tie with them. Every key has to stay in the map with its own
+     * value.
+     *
+     * @throws IllegalStateException if a key was lost or maps to the wrong
+     * value
+     */
+    private static void tiedKeys() {
+        HashMap<TiedKey, Integer> map = new HashMap<>();
+        int count = 4 * HashMap.TREEIFY_THRESHOLD;
+        for (int i = 0; i < count; i += 2) {
+            check(map.put(new TiedKey(i), i) == null);
+        }
+        for (int i = 1; i < count; i += 2) {
+            check(map.put(new TiedKey(i), i) == null);
+        }
+        check(map.size() == count);
+        for (int i = 0; i < count; i++) {
+            check(map.get(new TiedKey(i)) == i);
+        }
+        for (int i = 0; i < count; i += 2) {
+            check(map.remove(new TiedKey(i)) == i);
+        }
+        for (int i = 0; i < count; i++) {
+            check(map.containsKey(new TiedKey(i)) == (i % 2 == 1));
+        }
+    }
+
+    /**
+     * Creates 2^bits distinct strings with the same non-negative hash code.
+     * "Aa" and "BB" hash the same, so every string made of bits of them does
+     * too. The one letter prefix is picked to make the hash non-negative.
+     *
+     * @param bits number of "Aa" or "BB" pairs in each string
+     * @return array of colliding strings
+     */
+    private static String[] collidingKeys(int bits) {
+        for (char prefix = 'a'; prefix <= 'z'; prefix++) {
+            String[] keys = new String[1 << bits];
+            for (int i = 0; i < keys.length; i++) {
+                StringBuilder sb = new StringBuilder().append(prefix);
+                for (int b = 0; b < bits; b++) {
+                    sb.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+                }
+                keys[i] = sb.toString();
+            }
+            if (keys[0].hashCode() >= 0) {
+                return keys;
+            }
+        }
+        throw new IllegalStateException("No prefix gives a non-negative"
+                + " hash code");
+    }
+
+    /**
+     * Compares HashStrategy choices on lookup time and chain lengths, for
+     * random keys, sequential keys, and keys that only differ in their high
+     * bits (multiples of 2^16), which defeat mask indexing without a spread.
+     */
+    private static void strategy() {
+        String[] names = {"modulo", "mask", "xorshift", "murmur3", "wyhash"};
+        HashStrategy[] strategies = {HashStrategy.MODULO,
+            new HashStrategy() {
+                @Override
+                public int spread(int hashCode) {
+                    return hashCode;
+                }
+            }, HashStrategy.xorShift(), HashStrategy.murmur3(0x9747b28c),
+            HashStrategy.wyhash(0x2d358dccaa6c78a5L)};
+        int count = ENTRIES / 4;
+        Integer[][] keySets = {randomKeys(count, 0), new Integer[count],
+            new Integer[count]};
+        for (int i = 0; i < count; i++) {
+            keySets[1][i] = i;
+            keySets[2][i] = i << 16;
+        }
+        String[] keyNames = {"random", "sequential", "high bits"};
+        System.out.println("strategy: " + count + " keys");
+        System.out.println("keys        strategy  ns/get  empty%  max chain"
+                + "  avg probe");
+        for (int k = 0; k < keySets.length; k++) {
+            for (int s = 0; s < strategies.length; s++) {
+                HashMap<Integer, Integer> map =
+                        new HashMap<>(INITIAL_LENGTH, strategies[s]);
+                for (Integer key : keySets[k]) {
+                    map.put(key, key);
+                }
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round <= ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    int found = 0;
+                    for (Integer key : keySets[k]) {
+                        found += map.containsKey(key) ? 1 : 0;
+                    }
+                    long time = System.nanoTime() - start;
+                    check(found == count);
+                    if (round > 0) {
+                        best = Math.min(best, time);
+                    }
+                }
+                MapEntry<Integer, Integer>[] table = map.getTable();
+                int empty = 0;
+                int maxChain = 0;
+                long probes = 0;
+                for (MapEntry<Integer, Integer> bucket : table) {
+                    int chain = 0;
+                    for (MapEntry<Integer, Integer> e = bucket; e != null;
+                            e = e.getNext()) {
+                        chain++;
+                    }
+                    empty += (chain == 0) ? 1 : 0;
+                    maxChain = Math.max(maxChain, chain);
+                    probes += chain * (chain + 1L) / 2;
+                }
+                System.out.printf("%-11s %-9s %6.1f %7.1f %10d %10.2f%n",
+                        keyNames[k], names[s], best / (double) count,
+                        100.0 * empty / table.length, maxChain,
+                        probes / (double) count);
+            }
+        }
+    }
+
+    /**
+     * Measures what HashMap metrics cost, timing the same fill and lookups
+     * with metrics disabled and enabled, then prints what they collected.
+     */
+    private static void metrics() {
+        Integer[] keys = randomKeys(ENTRIES, 0);
+        System.out.println("metrics: " + ENTRIES + " keys");
+        System.out.println("metrics   ns/put  ns/get");
+        HashMap<Integer, Integer> map = null;
+        for (boolean enabled : new boolean[] {false, true}) {
+            long bestPut = Long.MAX_VALUE;
+            long bestGet = Long.MAX_VALUE;
+            for (int round = 0; round <= ROUNDS; round++) {
+                map = new HashMap<>();
+                if (enabled) {
+                    map.enableMetrics();
+                }
+                long start = System.nanoTime();
+                for (Integer key : keys) {
+                    map.put(key, key);
+                }
+                long put = System.nanoTime() - start;
+                start = System.nanoTime();
+                long sum = 0;
+                for (Integer key : keys) {
+                    sum += map.get(key);
+                }
+                long get = System.nanoTime() - start;
+                check(sum != 0);
+                if (round > 0) {
+                    bestPut = Math.min(bestPut, put);
+                    bestGet = Math.min(bestGet, get);
+                }
+            }
+            System.out.printf("%-9s %6.1f %7.1f%n", enabled ? "on" : "off",
+                    bestPut / (double) ENTRIES, bestGet / (double) ENTRIES);
+        }
+        System.out.println(map.getMetrics());
+        System.out.printf("load factor %.3f, chain length histogram %s%n",
+                map.loadFactor(), Arrays.toString(map.chainLengthHistogram()));
+    }
+
+    /**
+     * Creates distinct non-negative random keys. Keys from different seeds do
+     * not overlap because the seed is stored in the low bits.
+     *
+     * @param count number of keys
+     * @param seed seed for the generator, from 0 to 3
+     * @return array of keys
+     */
+    private static Integer[] randomKeys(int count, int seed) {
+        Random random = new Random(seed);
+        Set<Integer> seen = new HashSet<>();
+        Integer[] keys = new Integer[count];
+        int i = 0;
+        while (i < count) {
+            int key = (random.nextInt() & 0x7FFFFFFC) | seed;
+            if (seen.add(key)) {
+                keys[i++] = key;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * A key with one hash code for every value, whose compareTo only looks
+     * at value / 2, so pairs of unequal keys compare as equal.
+     */
+    private static final class TiedKey implements Comparable<TiedKey> {
+        private final int value;
+
+        /**
+         * Creates a key.
+         *
+         * @param value value of the key
+         */
+        private TiedKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(TiedKey other) {
+            return Integer.compare(value / 2, other.value / 2);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TiedKey && ((TiedKey) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    /**
+     * Guards against the JIT removing the measured work.
+     *
+     * @param condition result that must hold
+     * @throws IllegalStateException if the condition is false
+     */
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("Benchmark produced a wrong"
+                    + " result");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Counters a HashMap collects while metrics are enabled on it.
+ *
+ * A probe is one key compared while looking for a key: walking a chain
+ * counts every entry visited, and a tree bin counts the height of its tree,
+ * which is the most entries a search of it can visit. Every put, get,
+ * containsKey and remove records how many probes it took. Resizes record how
+ * long they took.
+ *
+ * The chain length histogram and the load factor are read from the table
+ * itself, through HashMap.chainLengthHistogram and HashMap.loadFactor, so
+ * they are correct whether or not metrics were enabled all along.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class HashMapMetrics {
+
+    private long operations;
+    private long probes;
+    private int maxProbes;
+    private int resizes;
+    private long resizeNanos;
+
+    /**
+     * Records the probes taken by one operation.
+     *
+     * @param count number of keys compared
+     */
+    void recordProbes(int count) {
+        operations++;
+        probes += count;
+        if (count > maxProbes) {
+            maxProbes = count;
+        }
+    }
+
+    /**
+     * Records one call to resizeBackingTable.
+     *
+     * @param nanos time the resize took, in nanoseconds
+     */
+    void recordResize(long nanos) {
+        resizes++;
+        resizeNanos += nanos;
+    }
+
+    /**
+     * Returns the number of operations recorded.
+     *
+     * @return number of puts, gets, containsKeys and removes
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns the average number of probes per operation.
+     *
+     * @return average probe length, or 0 if nothing was recorded
+     */
+    public double getAverageProbeLength() {
+        return (operations == 0) ? 0 : (double) probes / operations;
+    }
+
+    /**
+     * Returns the largest number of probes a single operation took.
+     *
+     * @return maximum probe length
+     */
+    public int getMaxProbeLength() {
+        return maxProbes;
+    }
+
+    /**
+     * Returns the number of times the backing table was resized.
+     *
+     * @return resize count
+     */
+    public int getResizeCount() {
+        return resizes;
+    }
+
+    /**
+     * Returns the total time spent resizing the backing table.
+     *
+     * @return total resize time in nanoseconds
+     */
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    /**
+     * Sets every counter back to zero.
+     */
+    public void reset() {
+        operations = 0;
+        probes = 0;
+        maxProbes = 0;
+        resizes = 0;
+        resizeNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("operations=%d avgProbes=%.3f maxProbes=%d"
+                + " resizes=%d resizeMillis=%.3f", operations,
+                getAverageProbeLength(), maxProbes, resizes, resizeNanos / 1e6);
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how HashMap turns a key's hash code into a bucket index.
+ *
+ * A strategy spreads the hash code (mixes its bits so that keys which differ
+ * only in a few bits still land in different buckets) and says whether the
+ * table length should be a power of two. Power of two tables index with a
+ * mask, which is much cheaper than the modulo used for other lengths, but
+ * only look at the low bits of the hash, so they need a spread function that
+ * moves entropy from the high bits down.
+ *
+ * Seeded strategies mix a secret seed into every hash, so an attacker who
+ * does not know the seed cannot pick keys that collide.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public interface HashStrategy {
+
+    /**
+     * The original HashMap indexing: the raw hash code modulo a table length
+     * that grows as 2 * old length + 1.
+     */
+    HashStrategy MODULO = new HashStrategy() {
+        @Override
+        public int spread(int hashCode) {
+            return hashCode;
+        }
+
+        @Override
+        public boolean powerOfTwo() {
+            return false;
+        }
+    };
+
+    /**
+     * Mixes the bits of a hash code.
+     *
+     * @param hashCode hash code of a key
+     * @return the spread hash
+     */
+    int spread(int hashCode);
+
+    /**
+     * Returns whether tables using this strategy have power of two lengths
+     * and are indexed with a mask.
+     *
+     * @return true for mask indexing, false for modulo indexing
+     */
+    default boolean powerOfTwo() {
+        return true;
+    }
+
+    /**
+     * Maps a spread hash to a bucket index.
+     *
+     * @param hash spread hash of a key
+     * @param length length of the table
+     * @return index in [0, length)
+     */
+    default int index(int hash, int length) {
+        if (powerOfTwo()) {
+            return hash & (length - 1);
+        }
+        return (hash & 0x7FFFFFFF) % length;
+    }
+
+    /**
+     * Returns a strategy that xors the high half of the hash code into the
+     * low half. Cheap, and enough for hash codes that are already well mixed
+     * but differ mostly in their high bits.
+     *
+     * @return an xor-shift strategy with power of two tables
+     */
+    static HashStrategy xorShift() {
+        return new HashStrategy() {
+            @Override
+            public int spread(int hashCode) {
+                return hashCode ^ (hashCode >>> 16);
+            }
+        };
+    }
+
+    /**
+     * Returns a strategy that applies the murmur3 32 bit finalizer to the
+     * hash code xored with a seed. Every input bit affects every output bit.
+     *
+     * @param seed value mixed into every hash
+     * @return a murmur3 strategy with power of two tables
+     */
+    static HashStrategy murmur3(int seed) {
+        return new HashStrategy() {
+            @Override
+            public int spread(int hashCode) {
+                int h = hashCode ^ seed;
+                h ^= h >>> 16;
+                h *= 0x85ebca6b;
+                h ^= h >>> 13;
+                h *= 0xc2b2ae35;
+                h ^= h >>> 16;
+                return h;
+            }
+        };
+    }
+
+    /**
+     * Returns a strategy that uses the wyhash mum mix: a 64 by 64 bit
+     * multiply of the seeded hash code with a constant, folding the high and
+     * low halves of the product together.
+     *
+     * @param seed value mixed into every hash
+     * @return a wyhash strategy with power of two tables
+     */
+    static HashStrategy wyhash(long seed) {
+        return new HashStrategy() {
+            @Override
+            public int spread(int hashCode) {
+                long a = (hashCode & 0xFFFFFFFFL) ^ seed ^ 0xa0761d6478bd642fL;
+                long b = 0xe7037ed1a0b428dbL;
+                long m = Math.multiplyHigh(a, b) ^ (a * b);
+                return (int) (m ^ (m >>> 32));
+            }
+        };
+    }
+
+    /**
+     * Returns a murmur3 strategy with a random seed, for maps that hold keys
+     * from untrusted sources.
+     *
+     * @return a randomly seeded murmur3 strategy
+     */
+    static HashStrategy seeded() {
+        return murmur3(ThreadLocalRandom.current().nextInt());
+    }
+}
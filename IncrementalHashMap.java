@@ -0,0 +1,401 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An external chaining HashMap that grows incrementally instead of rehashing
+ * every entry at once.
+ *
+ * When a put would exceed MAX_LOAD_FACTOR, a new table of length
+ * 2 * old length + 1 is allocated and the old table is kept alongside it.
+ * After that, every put, get and remove moves at most MIGRATION_STEP buckets
+ * of the old table into the new one, relinking the existing MapEntry nodes
+ * rather than creating new ones. Lookups check both tables until the old one
+ * is empty. No single operation pays for a full rehash, so latency stays flat
+ * while the map grows.
+ *
+ * Has the same API as HashMap. resizeBackingTable still rehashes everything
+ * at once, since the caller asked for that length explicitly.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class IncrementalHashMap<K, V> {
+
+    public static final int INITIAL_CAPACITY = 11;
+    public static final double MAX_LOAD_FACTOR = 0.67;
+    public static final int MIGRATION_STEP = 4;
+    private MapEntry<K, V>[] table;
+    private MapEntry<K, V>[] oldTable;
+    private int migrateIndex;
+    private int size;
+
+    /**
+     * Creates a hash map with no entries and a backing table of length
+     * INITIAL_CAPACITY.
+     */
+    public IncrementalHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a hash map with no entries and a backing table of length
+     * initialCapacity.
+     *
+     * @param initialCapacity initial capacity of the backing table
+     * @throws IllegalArgumentException if initialCapacity is non-positive
+     */
+    public IncrementalHashMap(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        table = new MapEntry[initialCapacity];
+        size = 0;
+    }
+
+    /**
+     * Adds the given key-value pair to the map, replacing the value in place
+     * if the key is already in the map. New entries are added to the back of
+     * their chain.
+     *
+     * If adding would exceed MAX_LOAD_FACTOR, a migration to a table of
+     * length 2 * old length + 1 is started instead of resizing at once. If a
+     * migration is still running at that point, it is finished first.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key or value is null
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        if ((size + 1.0) / table.length > MAX_LOAD_FACTOR) {
+            finishMigration();
+            oldTable = table;
+            migrateIndex = 0;
+            table = new MapEntry[2 * table.length + 1];
+        }
+        migrateBucketOf(key);
+        migrate();
+        int index = findInd(key, table.length);
+        MapEntry<K, V> current = table[index];
+        if (current == null) {
+            table[index] = new MapEntry<>(key, value);
+            size++;
+            return null;
+        }
+        while (true) {
+            if (current.getKey().equals(key)) {
+                V temp = current.getValue();
+                current.setValue(value);
+                return temp;
+            }
+            if (current.getNext() == null) {
+                current.setNext(new MapEntry<>(key, value));
+                size++;
+                return null;
+            }
+            current = current.getNext();
+        }
+    }
+
+    /**
+     * Removes the entry with a matching key from the map.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key does not exist
+     * @return the value previously associated with the key
+     */
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        migrateBucketOf(key);
+        migrate();
+        int index = findInd(key, table.length);
+        MapEntry<K, V> previous = null;
+        MapEntry<K, V> current = table[index];
+        while (current != null) {
+            if (current.getKey().equals(key)) {
+                if (previous == null) {
+                    table[index] = current.getNext();
+                } else {
+                    previous.setNext(current.getNext());
+                }
+                size--;
+                return current.getValue();
+            }
+            previous = current;
+            current = current.getNext();
+        }
+        throw new NoSuchElementException("Key does not exist");
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        migrate();
+        MapEntry<K, V> entry = find(key);
+        if (entry == null) {
+            throw new NoSuchElementException("Key does not exist");
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        migrate();
+        return find(key) != null;
+    }
+
+    /**
+     * Resizes the backing table to the specified length at once, finishing
+     * any running migration first. Like HashMap, the load factor is
+     * disregarded.
+     *
+     * @param length new length of the backing table
+     * @throws IllegalArgumentException if length is non-positive or less than
+     * the number of items in the hash map.
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Length cannot be negative"
+                    + " or less than size");
+        }
+        finishMigration();
+        oldTable = table;
+        migrateIndex = 0;
+        table = new MapEntry[length];
+        finishMigration();
+    }
+
+    /**
+     * Returns a Set of the keys contained in this map, from both tables while
+     * a migration is running.
+     *
+     * @return set of keys in this map
+     */
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        addKeys(oldTable, set);
+        addKeys(table, set);
+        return set;
+    }
+
+    /**
+     * Returns a List of the values contained in this map. Values still in
+     * the old table come first.
+     *
+     * @return list of values in this map
+     */
+    public List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        addValues(oldTable, list);
+        addValues(table, list);
+        return list;
+    }
+
+    /**
+     * Clears the map, dropping any running migration, and resets it to a
+     * new table of length INITIAL_CAPACITY.
+     */
+    public void clear() {
+        table = new MapEntry[INITIAL_CAPACITY];
+        oldTable = null;
+        migrateIndex = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the size of the map.
+     *
+     * @return number of items in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether a migration from an old table is still running.
+     *
+     * @return true if there are entries left in the old table
+     */
+    public boolean isMigrating() {
+        return oldTable != null;
+    }
+
+    /**
+     * Returns the current (new) backing table.
+     *
+     * @return the backing table of the map
+     */
+    public MapEntry<K, V>[] getTable() {
+        return table;
+    }
+
+    /**
+     * helper method that gets the index for a key
+     *
+     * @param key key to find the index of
+     * @param length length of the table
+     * @return index of requested key
+     */
+    private int findInd(K key, int length) {
+        return (key.hashCode() & 0x7FFFFFFF) % length;
+    }
+
+    /**
+     * Finds the entry for a key in the new table, then the old one.
+     *
+     * @param key key to search for
+     * @return the entry, or null if the key is not in the map
+     */
+    private MapEntry<K, V> find(K key) {
+        MapEntry<K, V> entry = findIn(table, key);
+        if (entry == null && oldTable != null) {
+            entry = findIn(oldTable, key);
+        }
+        return entry;
+    }
+
+    /**
+     * Walks the chain a key hashes to in the given table.
+     *
+     * @param t table to search
+     * @param key key to search for
+     * @return the entry, or null if the key is not in the chain
+     */
+    private MapEntry<K, V> findIn(MapEntry<K, V>[] t, K key) {
+        MapEntry<K, V> current = t[findInd(key, t.length)];
+        while (current != null) {
+            if (current.getKey().equals(key)) {
+                return current;
+            }
+            current = current.getNext();
+        }
+        return null;
+    }
+
+    /**
+     * Moves up to MIGRATION_STEP buckets from the old table to the new one.
+     * Empty buckets count toward the step, so the work per call is bounded
+     * by the step times the longest chain.
+     */
+    private void migrate() {
+        if (oldTable == null) {
+            return;
+        }
+        int end = Math.min(migrateIndex + MIGRATION_STEP, oldTable.length);
+        for (; migrateIndex < end; migrateIndex++) {
+            moveBucket(migrateIndex);
+        }
+        if (migrateIndex == oldTable.length) {
+            oldTable = null;
+        }
+    }
+
+    /**
+     * Moves the old bucket a key hashes to, so that put and remove only have
+     * to look at the new table.
+     *
+     * @param key key whose bucket should be moved
+     */
+    private void migrateBucketOf(K key) {
+        if (oldTable != null) {
+            moveBucket(findInd(key, oldTable.length));
+        }
+    }
+
+    /**
+     * Relinks every entry of one old bucket into the new table.
+     *
+     * @param index index of the bucket in the old table
+     */
+    private void moveBucket(int index) {
+        MapEntry<K, V> current = oldTable[index];
+        oldTable[index] = null;
+        while (current != null) {
+            MapEntry<K, V> next = current.getNext();
+            int newIndex = findInd(current.getKey(), table.length);
+            current.setNext(table[newIndex]);
+            table[newIndex] = current;
+            current = next;
+        }
+    }
+
+    /**
+     * Moves every remaining bucket of the old table, if there is one.
+     */
+    private void finishMigration() {
+        if (oldTable == null) {
+            return;
+        }
+        for (; migrateIndex < oldTable.length; migrateIndex++) {
+            moveBucket(migrateIndex);
+        }
+        oldTable = null;
+    }
+
+    /**
+     * Adds every key in a table to a set.
+     *
+     * @param t table to read, or null
+     * @param set set to add to
+     */
+    private void addKeys(MapEntry<K, V>[] t, Set<K> set) {
+        if (t == null) {
+            return;
+        }
+        for (MapEntry<K, V> i : t) {
+            for (MapEntry<K, V> current = i; current != null;
+                    current = current.getNext()) {
+                set.add(current.getKey());
+            }
+        }
+    }
+
+    /**
+     * Adds every value in a table to a list, in order of increasing index
+     * and from the front to the back of each chain.
+     *
+     * @param t table to read, or null
+     * @param list list to add to
+     */
+    private void addValues(MapEntry<K, V>[] t, List<V> list) {
+        if (t == null) {
+            return;
+        }
+        for (MapEntry<K, V> i : t) {
+            for (MapEntry<K, V> current = i; current != null;
+                    current = current.getNext()) {
+                list.add(current.getValue());
+            }
+        }
+    }
+}
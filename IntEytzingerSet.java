@@ -0,0 +1,110 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * EytzingerSet for int keys, stored in an int[] so lookups never box. 16
+ * keys fit in a cache line, so the first four levels of every search
+ * take only one or two lines.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class IntEytzingerSet {
+
+    private final int[] keys;
+
+    /**
+     * Creates a set of the distinct values in an array, which does not have
+     * to be sorted. The array is not changed.
+     *
+     * @param data the values to put in the set
+     * @throws IllegalArgumentException if data is null
+     */
+    public IntEytzingerSet(int[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        int[] sorted = data.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        keys = new int[size + 1];
+        int k = 1;
+        while (2 * k <= size) {
+            k = 2 * k;
+        }
+        for (int i = 0; i < size; i++) {
+            keys[k] = sorted[i];
+            if (2 * k + 1 <= size) {
+                k = 2 * k + 1;
+                while (2 * k <= size) {
+                    k = 2 * k;
+                }
+            } else {
+                while ((k & 1) == 1) {
+                    k >>= 1;
+                }
+                k >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the value is in the set.
+     *
+     * @param value the value to search for
+     * @return whether the value is in the set
+     */
+    public boolean contains(int value) {
+        int k = lowerBound(value);
+        return k != 0 && keys[k] == value;
+    }
+
+    /**
+     * Returns the smallest value in the set that is >= the parameter, like
+     * EytzingerSet.ceiling. There is no null to return when there is no
+     * such value, so that throws instead.
+     *
+     * @param value the value to search for
+     * @throws java.util.NoSuchElementException if no value in the set is
+     * >= the parameter
+     * @return the smallest value in the set >= the parameter
+     */
+    public int ceiling(int value) {
+        int k = lowerBound(value);
+        if (k == 0) {
+            throw new NoSuchElementException("No value is >= " + value);
+        }
+        return keys[k];
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return number of values in the set
+     */
+    public int size() {
+        return keys.length - 1;
+    }
+
+    /**
+     * helper method that finds the smallest key >= the value, like
+     * EytzingerSet.lowerBound
+     *
+     * @param value the value being searched for
+     * @return index of the smallest key >= value, or 0 if there is none
+     */
+    private int lowerBound(int value) {
+        int k = 1;
+        while (k < keys.length) {
+            k = 2 * k + (keys[k] < value ? 1 : 0);
+        }
+        return k >> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+}
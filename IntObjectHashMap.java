@@ -0,0 +1,342 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A HashMap from int keys to object values that stores the keys in an
+ * unboxed array.
+ *
+ * Uses open addressing with linear probing. A slot is empty when its key is
+ * the empty key sentinel, so the sentinel itself cannot be used as a key, the
+ * same way HashMap does not allow null keys. The sentinel defaults to 0 and
+ * can be set in the constructor when 0 is a real key. Removes use backward
+ * shift deletion, so no tombstones are needed. get and put never allocate
+ * unless put triggers a resize.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class IntObjectHashMap<V> {
+
+    public static final int INITIAL_CAPACITY = 11;
+    public static final double MAX_LOAD_FACTOR = 0.67;
+    public static final int DEFAULT_EMPTY_KEY = 0;
+    private final int emptyKey;
+    private int[] keys;
+    private V[] values;
+    private int size;
+
+    /**
+     * Creates a map with no entries, a backing capacity of INITIAL_CAPACITY
+     * and DEFAULT_EMPTY_KEY as the empty slot sentinel.
+     */
+    public IntObjectHashMap() {
+        this(INITIAL_CAPACITY, DEFAULT_EMPTY_KEY);
+    }
+
+    /**
+     * Creates a map with no entries.
+     *
+     * @param initialCapacity initial capacity of the backing arrays
+     * @param emptyKey key value that marks an empty slot. It cannot be added
+     * to the map
+     * @throws IllegalArgumentException if initialCapacity is non-positive
+     */
+    public IntObjectHashMap(int initialCapacity, int emptyKey) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.emptyKey = emptyKey;
+        keys = newKeys(initialCapacity);
+        values = (V[]) new Object[initialCapacity];
+        size = 0;
+    }
+
+    /**
+     * Adds the given key-value pair to the map, replacing the value if the
+     * key is already in the map.
+     *
+     * The table is resized to 2 * old length + 1 before adding if adding
+     * would exceed MAX_LOAD_FACTOR.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key is the empty key sentinel or
+     * value is null
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V put(int key, V value) {
+        checkKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        if ((size + 1.0) / keys.length > MAX_LOAD_FACTOR) {
+            resizeBackingTable(2 * keys.length + 1);
+        }
+        int index = findInd(key, keys.length);
+        while (keys[index] != emptyKey) {
+            if (keys[index] == key) {
+                V old = values[index];
+                values[index] = value;
+                return old;
+            }
+            if (++index == keys.length) {
+                index = 0;
+            }
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is the empty key sentinel
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public V get(int key) {
+        checkKey(key);
+        int index = findSlot(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key does not exist");
+        }
+        return values[index];
+    }
+
+    /**
+     * Gets the value associated with the given key without throwing on a
+     * missing key.
+     *
+     * @param key the key to search for
+     * @param defaultValue value to return if the key is not in the map
+     * @throws IllegalArgumentException if key is the empty key sentinel
+     * @return the value associated with the key, or defaultValue
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        checkKey(key);
+        int index = findSlot(key);
+        return (index < 0) ? defaultValue : values[index];
+    }
+
+    /**
+     * Removes the entry with a matching key from the map.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is the empty key sentinel
+     * @throws java.util.NoSuchElementException if the key does not exist
+     * @return the value previously associated with the key
+     */
+    public V remove(int key) {
+        checkKey(key);
+        int index = findSlot(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key does not exist");
+        }
+        V temp = values[index];
+        int hole = index;
+        int next = index;
+        while (true) {
+            if (++next == keys.length) {
+                next = 0;
+            }
+            if (keys[next] == emptyKey) {
+                break;
+            }
+            int home = findInd(keys[next], keys.length);
+            if (canShift(home, hole, next)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = emptyKey;
+        values[hole] = null;
+        size--;
+        return temp;
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is the empty key sentinel
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(int key) {
+        checkKey(key);
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Resizes the backing arrays to the specified length and rehashes every
+     * entry into them.
+     *
+     * @param length new length of the backing arrays
+     * @throws IllegalArgumentException if length is non-positive or less than
+     * or equal to the number of items in the map
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length <= size) {
+            throw new IllegalArgumentException("Length cannot be negative"
+                    + " or less than size");
+        }
+        int[] newKeys = newKeys(length);
+        V[] newValues = (V[]) new Object[length];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != emptyKey) {
+                int index = findInd(keys[i], length);
+                while (newKeys[index] != emptyKey) {
+                    if (++index == length) {
+                        index = 0;
+                    }
+                }
+                newKeys[index] = keys[i];
+                newValues[index] = values[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    /**
+     * Returns the keys contained in this map, in order of increasing slot
+     * index.
+     *
+     * @return array of keys in this map
+     */
+    public int[] keySet() {
+        int[] result = new int[size];
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != emptyKey) {
+                result[j++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values contained in this map, in order of increasing slot
+     * index.
+     *
+     * @return list of values in this map
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != emptyKey) {
+                result.add(values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clears the map and resets the backing arrays to INITIAL_CAPACITY.
+     */
+    public void clear() {
+        keys = newKeys(INITIAL_CAPACITY);
+        values = (V[]) new Object[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Returns the size of the map.
+     *
+     * @return number of items in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the empty slot sentinel of this map.
+     *
+     * @return the key value that cannot be added to this map
+     */
+    public int getEmptyKey() {
+        return emptyKey;
+    }
+
+    /**
+     * helper method that gets the home index for a key
+     *
+     * @param key key to find the index of
+     * @param length length of the table
+     * @return index the key hashes to
+     */
+    private int findInd(int key, int length) {
+        return (key & 0x7FFFFFFF) % length;
+    }
+
+    /**
+     * Finds the slot holding the key.
+     *
+     * @param key key to search for
+     * @return index of the key, or -1 if the key is not in the map
+     */
+    private int findSlot(int key) {
+        int index = findInd(key, keys.length);
+        while (keys[index] != emptyKey) {
+            if (keys[index] == key) {
+                return index;
+            }
+            if (++index == keys.length) {
+                index = 0;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the entry at next, which hashes to home, may be moved
+     * back into hole. It may not if home lies cyclically after hole and at or
+     * before next, since the entry would then sit before its home slot.
+     *
+     * @param home home index of the entry
+     * @param hole index of the empty slot
+     * @param next index of the entry
+     * @return true if the entry can be shifted into the hole
+     */
+    private static boolean canShift(int home, int hole, int next) {
+        if (hole <= next) {
+            return home <= hole || home > next;
+        }
+        return home <= hole && home > next;
+    }
+
+    /**
+     * Creates a key array with every slot set to the empty key sentinel.
+     *
+     * @param length length of the array
+     * @return new key array
+     */
+    private int[] newKeys(int length) {
+        int[] result = new int[length];
+        if (emptyKey != 0) {
+            Arrays.fill(result, emptyKey);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that a key can be stored in this map.
+     *
+     * @param key key to check
+     * @throws IllegalArgumentException if key is the empty key sentinel
+     */
+    private void checkKey(int key) {
+        if (key == emptyKey) {
+            throw new IllegalArgumentException("Key cannot be the empty key"
+                    + " sentinel " + emptyKey);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An AVL tree of closed intervals [lo, hi] that finds every interval
+ * overlapping a point or another interval without scanning them all.
+ *
+ * Intervals are ordered by lo, then by hi, and equal intervals are stored
+ * once. Each node also stores the largest hi in its subtree, kept up to
+ * date by add, remove, rotate, leftRotation and rightRotation the same way
+ * heights are. A query skips any subtree whose largest hi is below the
+ * query, and stops at the first interval whose lo is above it.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class IntervalTree<T extends Comparable<? super T>> {
+
+    private static final int MAX_PATH = 48;
+    private Node<T> root;
+    private int size;
+    private int modCount;
+
+    /**
+     * Adds the interval [lo, hi] to the tree. Duplicates are ignored.
+     *
+     * @param lo start of the interval
+     * @param hi end of the interval, inclusive
+     * @throws IllegalArgumentException if lo or hi is null or lo > hi
+     */
+    public void add(T lo, T hi) {
+        Interval<T> interval = interval(lo, hi);
+        Node<T>[] path = new Node[MAX_PATH];
+        int depth = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = node.interval.compareTo(interval);
+            if (cmp == 0) {
+                return;
+            }
+            path[depth++] = node;
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        Node<T> leaf = new Node<>(interval);
+        ++size;
+        ++modCount;
+        if (depth == 0) {
+            root = leaf;
+            return;
+        }
+        Node<T> parent = path[depth - 1];
+        if (parent.interval.compareTo(interval) > 0) {
+            parent.left = leaf;
+        } else {
+            parent.right = leaf;
+        }
+        rebalance(path, depth);
+    }
+
+    /**
+     * Removes the interval [lo, hi] from the tree, replacing a node with two
+     * children by its predecessor like AVL does.
+     *
+     * @param lo start of the interval
+     * @param hi end of the interval, inclusive
+     * @throws IllegalArgumentException if lo or hi is null or lo > hi
+     * @throws java.util.NoSuchElementException if the interval is not found
+     * @return the interval that was stored in the tree
+     */
+    public Interval<T> remove(T lo, T hi) {
+        Interval<T> interval = interval(lo, hi);
+        Node<T>[] path = new Node[MAX_PATH];
+        int depth = 0;
+        Node<T> node = root;
+        int cmp;
+        while (node != null
+                && (cmp = node.interval.compareTo(interval)) != 0) {
+            path[depth++] = node;
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        if (node == null) {
+            throw new NoSuchElementException("Interval is not in the tree");
+        }
+        Interval<T> removed = node.interval;
+        if (node.left != null && node.right != null) {
+            path[depth++] = node;
+            Node<T> predecessor = node.left;
+            while (predecessor.right != null) {
+                path[depth++] = predecessor;
+                predecessor = predecessor.right;
+            }
+            node.interval = predecessor.interval;
+            replaceChild(path[depth - 1], predecessor, predecessor.left);
+        } else {
+            replaceChild((depth == 0) ? null : path[depth - 1], node,
+                    (node.left != null) ? node.left : node.right);
+        }
+        --size;
+        ++modCount;
+        rebalance(path, depth);
+        return removed;
+    }
+
+    /**
+     * Returns whether the interval [lo, hi] is in the tree.
+     *
+     * @param lo start of the interval
+     * @param hi end of the interval, inclusive
+     * @throws IllegalArgumentException if lo or hi is null or lo > hi
+     * @return whether the interval is in the tree
+     */
+    public boolean contains(T lo, T hi) {
+        Interval<T> interval = interval(lo, hi);
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = node.interval.compareTo(interval);
+            if (cmp == 0) {
+                return true;
+            }
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a cursor over the intervals that contain the point, in order.
+     * Same as overlapping(point, point).
+     *
+     * @param point the point
+     * @throws IllegalArgumentException if point is null
+     * @return an iterator over the intervals with lo <= point <= hi
+     */
+    public Iterator<Interval<T>> overlapping(T point) {
+        return overlapping(point, point);
+    }
+
+    /**
+     * Returns a cursor over the intervals that overlap [lo, hi], meaning
+     * they share at least one point with it, in order. Each interval is
+     * found only as the cursor gets to it, so a caller that stops early
+     * pays only for what it took.
+     *
+     * Subtrees with no overlapping interval are never entered, so every
+     * node visited is reported, is an ancestor of one that is, or is on the
+     * path to where the scan stops. For k results that is O((k + 1) log n)
+     * nodes in the worst case, and close to O(log n + k) when the results
+     * sit near each other in the tree, as they mostly do.
+     *
+     * @param lo start of the query interval
+     * @param hi end of the query interval, inclusive
+     * @throws IllegalArgumentException if lo or hi is null or lo > hi
+     * @return an iterator over the intervals overlapping [lo, hi]
+     */
+    public Iterator<Interval<T>> overlapping(T lo, T hi) {
+        return new OverlapIterator(interval(lo, hi));
+    }
+
+    /**
+     * Clears the tree.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+        ++modCount;
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Returns the number of intervals in the tree.
+     *
+     * @return number of intervals in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * helper method that checks the bounds of an interval and creates it
+     *
+     * @param lo start of the interval
+     * @param hi end of the interval, inclusive
+     * @throws IllegalArgumentException if lo or hi is null or lo > hi
+     * @return the interval
+     */
+    private Interval<T> interval(T lo, T hi) {
+        if (lo == null || hi == null) {
+            throw new IllegalArgumentException("Bounds cannot be null");
+        }
+        if (lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException("Lo cannot be greater than"
+                    + " hi");
+        }
+        return new Interval<>(lo, hi);
+    }
+
+    /**
+     * helper method that walks a recorded path back up to the root,
+     * updating heights and largest ends and rotating where needed
+     *
+     * @param path nodes from the root down, path[0] being the root
+     * @param depth number of nodes on the path
+     */
+    private void rebalance(Node<T>[] path, int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<T> node = path[i];
+            update(node);
+            Node<T> subtree = rotate(node);
+            if (subtree != node) {
+                replaceChild((i == 0) ? null : path[i - 1], node, subtree);
+            }
+        }
+    }
+
+    /**
+     * helper method that puts a replacement where a child used to be
+     *
+     * @param parent parent of the child, or null if the child is the root
+     * @param child child being replaced
+     * @param replacement node taking its place, may be null
+     */
+    private void replaceChild(Node<T> parent, Node<T> child,
+                              Node<T> replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    /**
+     * Updates the height and largest end of a node from its children.
+     *
+     * @param node node to be updated
+     */
+    private void update(Node<T> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        T max = node.interval.hi;
+        if (node.left != null && node.left.max.compareTo(max) > 0) {
+            max = node.left.max;
+        }
+        if (node.right != null && node.right.max.compareTo(max) > 0) {
+            max = node.right.max;
+        }
+        node.max = max;
+    }
+
+    /**
+     * Rotates the subtree rooted at a node if it is out of balance.
+     *
+     * @param node root of the subtree
+     * @return new root of the subtree
+     */
+    private Node<T> rotate(Node<T> node) {
+        int bf = height(node.left) - height(node.right);
+        if (bf > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = leftRotation(node.left);
+            }
+            return rightRotation(node);
+        } else if (bf < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rightRotation(node.right);
+            }
+            return leftRotation(node);
+        }
+        return node;
+    }
+
+    /**
+     * right rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private Node<T> rightRotation(Node<T> node) {
+        Node<T> leftChild = node.left;
+        node.left = leftChild.right;
+        leftChild.right = node;
+        update(node);
+        update(leftChild);
+        return leftChild;
+    }
+
+    /**
+     * left rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private Node<T> leftRotation(Node<T> node) {
+        Node<T> rightChild = node.right;
+        node.right = rightChild.left;
+        rightChild.left = node;
+        update(node);
+        update(rightChild);
+        return rightChild;
+    }
+
+    /**
+     * Returns the height of a possibly null node.
+     *
+     * @param node the node
+     * @return its height, -1 for null
+     */
+    private static int height(Node<?> node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    /**
+     * A closed interval [lo, hi], ordered by lo and then by hi.
+     *
+     * @param <T> type of the bounds
+     */
+    public static final class Interval<T extends Comparable<? super T>>
+            implements Comparable<Interval<T>> {
+        private final T lo;
+        private final T hi;
+
+        /**
+         * Creates an interval.
+         *
+         * @param lo start of the interval
+         * @param hi end of the interval, inclusive
+         */
+        private Interval(T lo, T hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * Returns the start of the interval.
+         *
+         * @return lo
+         */
+        public T getLo() {
+            return lo;
+        }
+
+        /**
+         * Returns the end of the interval.
+         *
+         * @return hi, inclusive
+         */
+        public T getHi() {
+            return hi;
+        }
+
+        @Override
+        public int compareTo(Interval<T> other) {
+            int cmp = lo.compareTo(other.lo);
+            return (cmp != 0) ? cmp : hi.compareTo(other.hi);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Interval)) {
+                return false;
+            }
+            Interval<?> interval = (Interval<?>) other;
+            return lo.equals(interval.lo) && hi.equals(interval.hi);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * lo.hashCode() + hi.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lo + ", " + hi + "]";
+        }
+    }
+
+    /**
+     * In-order iterator over the intervals overlapping a query. Its stack
+     * only holds nodes whose subtree reaches the query's lo, and it ends at
+     * the first node starting after the query's hi, since every node after
+     * it in order starts later still.
+     */
+    private final class OverlapIterator implements Iterator<Interval<T>> {
+        private final Node<T>[] stack = new Node[MAX_PATH];
+        private final Interval<T> query;
+        private final int expected = modCount;
+        private int depth;
+        private Interval<T> next;
+
+        /**
+         * Creates an iterator positioned at the first overlapping interval.
+         *
+         * @param query the query interval
+         */
+        private OverlapIterator(Interval<T> query) {
+            this.query = query;
+            pushLeft(root);
+            advance();
+        }
+
+        /**
+         * Pushes a node and its chain of left children, stopping at the
+         * first subtree that ends before the query starts.
+         *
+         * @param node first node to push, may be null
+         */
+        private void pushLeft(Node<T> node) {
+            while (node != null && node.max.compareTo(query.lo) >= 0) {
+                stack[depth++] = node;
+                node = node.left;
+            }
+        }
+
+        /**
+         * Finds the next overlapping interval, or sets next to null if
+         * there is none.
+         */
+        private void advance() {
+            next = null;
+            while (next == null && depth > 0) {
+                Node<T> node = stack[--depth];
+                if (node.interval.lo.compareTo(query.hi) > 0) {
+                    depth = 0;
+                    return;
+                }
+                pushLeft(node.right);
+                if (node.interval.hi.compareTo(query.lo) >= 0) {
+                    next = node.interval;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Interval<T> next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException("No more intervals");
+            }
+            Interval<T> interval = next;
+            advance();
+            return interval;
+        }
+    }
+
+    /**
+     * A tree node that knows the largest end in its subtree.
+     *
+     * @param <T> type of the bounds
+     */
+    private static final class Node<T extends Comparable<? super T>> {
+        private Interval<T> interval;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+        private T max;
+
+        /**
+         * Creates a leaf.
+         *
+         * @param interval interval of the node
+         */
+        private Node(Interval<T> interval) {
+            this.interval = interval;
+            this.max = interval.hi;
+        }
+    }
+}
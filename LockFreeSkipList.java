@@ -0,0 +1,455 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A sorted set with the AVL operations that any number of threads can use
+ * at once without locks.
+ *
+ * The data is kept in a skip list: a sorted linked list at level 0, and
+ * above it sparser lists that each skip over about half of the nodes of the
+ * one below, so a search drops down through the levels in O(log n) expected
+ * steps. Each node keeps its links in an array updated through a VarHandle,
+ * with volatile reads and compareAndSet, and a link replaced by a marker
+ * node means the node holding it is being removed. An add links its node
+ * into level 0 with one compareAndSet, which is the moment it becomes part
+ * of the set, and then into the levels above. A remove marks its node's
+ * links from the top down, and marking level 0 is the moment it leaves the
+ * set; searches that run into marked nodes unlink them. A thread that loses
+ * a compareAndSet retries, so some thread always makes progress. Searches
+ * start at the highest level any node has reached rather than at MAX_LEVEL.
+ *
+ * contains and get never write or retry, so readers only contend with
+ * each other for cache lines. Iterators are weakly consistent: they never
+ * throw ConcurrentModificationException, return each data at most once in
+ * sorted order, and see some but not necessarily all changes made after
+ * they were created. The algorithm follows Herlihy and Shavit's lock-free
+ * skip list.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class LockFreeSkipList<T extends Comparable<? super T>>
+        implements Iterable<T> {
+
+    private static final int MAX_LEVEL = 32;
+    private final Node<T> tail = new Node<>(null, MAX_LEVEL - 1);
+    private final Node<T> head = new Node<>(null, MAX_LEVEL - 1);
+    private final AtomicInteger levels = new AtomicInteger();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates an empty set.
+     */
+    public LockFreeSkipList() {
+        for (int level = 0; level < MAX_LEVEL; level++) {
+            head.setLink(level, tail);
+        }
+    }
+
+    /**
+     * Adds the data to the set. Duplicates are ignored.
+     *
+     * @param data the data to be added
+     * @throws IllegalArgumentException if the data is null
+     */
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        int topLevel = randomLevel();
+        if (topLevel > levels.get()) {
+            levels.accumulateAndGet(topLevel, Math::max);
+        }
+        Node<T>[] preds = new Node[MAX_LEVEL];
+        Node<T>[] succs = new Node[MAX_LEVEL];
+        while (true) {
+            if (find(data, preds, succs)) {
+                return;
+            }
+            Node<T> node = new Node<>(data, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.setLink(level, succs[level]);
+            }
+            if (!preds[0].casLink(0, succs[0], node)) {
+                continue;
+            }
+            size.increment();
+            for (int level = 1; level <= topLevel; level++) {
+                while (true) {
+                    Node<T> link = node.link(level);
+                    if (link.marker || (link != succs[level]
+                            && !node.casLink(level, link, succs[level]))) {
+                        return;
+                    }
+                    if (preds[level].casLink(level, succs[level], node)) {
+                        break;
+                    }
+                    find(data, preds, succs);
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Removes the data from the set.
+     *
+     * @param data the data to remove
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found,
+     * including when another thread removed it first
+     * @return the data that was stored in the set
+     */
+    public T remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T>[] preds = new Node[MAX_LEVEL];
+        Node<T>[] succs = new Node[MAX_LEVEL];
+        if (!find(data, preds, succs)) {
+            throw new NoSuchElementException("Data is not in the set");
+        }
+        Node<T> node = succs[0];
+        for (int level = node.topLevel; level >= 1; level--) {
+            Node<T> link = node.link(level);
+            while (!link.marker && !node.casLink(level, link,
+                    new Node<>(link))) {
+                link = node.link(level);
+            }
+        }
+        while (true) {
+            Node<T> link = node.link(0);
+            if (link.marker) {
+                throw new NoSuchElementException("Data is not in the set");
+            }
+            if (node.casLink(0, link, new Node<>(link))) {
+                size.decrement();
+                find(data, preds, succs);
+                return node.data;
+            }
+        }
+    }
+
+    /**
+     * Returns the data in the set equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data stored in the set
+     */
+    public T get(T data) {
+        Node<T> node = ceiling(data);
+        if (node == tail || node.data.compareTo(data) != 0) {
+            throw new NoSuchElementException("Data was not found");
+        }
+        return node.data;
+    }
+
+    /**
+     * Returns whether data equal to the parameter is in the set.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return whether the data is in the set
+     */
+    public boolean contains(T data) {
+        Node<T> node = ceiling(data);
+        return node != tail && node.data.compareTo(data) == 0;
+    }
+
+    /**
+     * Returns a sorted list of the data that are > data1 and < data2, like
+     * AVL.sortedInBetween. Drains rangeIterator, so under concurrent
+     * updates the list is weakly consistent rather than a snapshot.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return a sorted list of data that is > data1 and < data2
+     */
+    public List<T> sortedInBetween(T data1, T data2) {
+        List<T> sorted = new ArrayList<>();
+        rangeIterator(data1, data2).forEachRemaining(sorted::add);
+        return sorted;
+    }
+
+    /**
+     * Returns a weakly consistent cursor over the data that are > data1 and
+     * < data2, in sorted order. It walks level 0 from the first node after
+     * data1, skipping nodes that are being removed.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return an iterator over the data that are > data1 and < data2
+     */
+    public Iterator<T> rangeIterator(T data1, T data2) {
+        if (data1 == null) {
+            throw new IllegalArgumentException("Data1 cannot be null");
+        }
+        if (data2 == null) {
+            throw new IllegalArgumentException("Data2 cannot be null");
+        }
+        if (data1.compareTo(data2) > 0) {
+            throw new IllegalArgumentException("Data1 cannot be greater than"
+                    + " data2");
+        }
+        Node<T> first = ceiling(data1);
+        if (first != tail && first.data.compareTo(data1) == 0) {
+            first = successor(first, 0);
+        }
+        return new LevelZeroIterator(first, data2);
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the set in sorted order.
+     *
+     * @return an iterator starting at the smallest data
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new LevelZeroIterator(successor(head, 0), null);
+    }
+
+    /**
+     * Returns the number of data in the set. While other threads are adding
+     * and removing it is only an estimate, since it sums per thread counts
+     * that keep changing.
+     *
+     * @return number of data in the set
+     */
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * helper method that finds, on every level, the last node with data
+     * smaller than the parameter and the node after it, unlinking any
+     * marked nodes on the way. Starts over from the head if an unlink
+     * fails, since that means the predecessor changed.
+     *
+     * @param data the data being searched for
+     * @param preds filled with the predecessor on each level
+     * @param succs filled with the successor on each level
+     * @return whether succs[0] holds the data
+     */
+    private boolean find(T data, Node<T>[] preds, Node<T>[] succs) {
+        retry:
+        while (true) {
+            Node<T> pred = head;
+            for (int level = levels.get(); level >= 0; level--) {
+                Node<T> curr = pred.link(level);
+                if (curr.marker) {
+                    continue retry;
+                }
+                while (curr != tail) {
+                    Node<T> link = curr.link(level);
+                    if (link.marker) {
+                        Node<T> succ = link.link(0);
+                        if (!pred.casLink(level, curr, succ)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                    } else if (curr.data.compareTo(data) < 0) {
+                        pred = curr;
+                        curr = link;
+                    } else {
+                        break;
+                    }
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return succs[0] != tail && succs[0].data.compareTo(data) == 0;
+        }
+    }
+
+    /**
+     * helper method that finds the first unmarked node with data >= the
+     * parameter without writing anything. Marked nodes are walked through
+     * instead of unlinked, which is safe because their links still lead
+     * forward, and only checked for at the end
+     *
+     * @param data the data being searched for
+     * @throws IllegalArgumentException if the data is null
+     * @return the node, or tail if there is none
+     */
+    private Node<T> ceiling(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T> pred = head;
+        Node<T> curr = tail;
+        for (int level = levels.get(); level >= 0; level--) {
+            curr = successor(pred, level);
+            while (curr != tail && curr.data.compareTo(data) < 0) {
+                pred = curr;
+                curr = successor(curr, level);
+            }
+        }
+        while (curr != tail && curr.link(0).marker) {
+            curr = successor(curr, 0);
+        }
+        return curr;
+    }
+
+    /**
+     * helper method that returns the node after a node on a level, looking
+     * through the marker if the node is being removed
+     *
+     * @param node the node, not tail
+     * @param level the level
+     * @return the next node on the level
+     */
+    private Node<T> successor(Node<T> node, int level) {
+        Node<T> link = node.link(level);
+        return link.marker ? link.link(0) : link;
+    }
+
+    /**
+     * Picks the top level of a new node: level l with probability 2^-(l+1),
+     * so each level holds about half the nodes of the one below.
+     *
+     * @return a level from 0 to MAX_LEVEL - 1
+     */
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current()
+                .nextInt() | (1 << (MAX_LEVEL - 1)));
+    }
+
+    /**
+     * Weakly consistent iterator along level 0, optionally stopping at an
+     * exclusive upper bound.
+     */
+    private final class LevelZeroIterator implements Iterator<T> {
+        private final T upper;
+        private Node<T> next;
+
+        /**
+         * Creates an iterator.
+         *
+         * @param first first node to consider, may be tail
+         * @param upper data at which to stop, exclusive, or null to run to
+         * the end of the set
+         */
+        private LevelZeroIterator(Node<T> first, T upper) {
+            this.upper = upper;
+            next = skipMarked(first);
+        }
+
+        /**
+         * Steps from a node over any nodes that are being removed.
+         *
+         * @param node the node to start at
+         * @return the first unmarked node from there, or tail
+         */
+        private Node<T> skipMarked(Node<T> node) {
+            while (node != tail && node.link(0).marker) {
+                node = node.link(0).link(0);
+            }
+            return node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != tail
+                    && (upper == null || next.data.compareTo(upper) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more data");
+            }
+            T data = next.data;
+            next = skipMarked(successor(next, 0));
+            return data;
+        }
+    }
+
+    /**
+     * A skip list node, linked into levels 0 to topLevel. A marker is a
+     * one level node that a removal swaps in for a link, pointing on to the
+     * successor the link had, so that a compareAndSet expecting the old
+     * successor fails once the link is marked.
+     *
+     * @param <T> data type
+     */
+    private static final class Node<T> {
+        private static final VarHandle LINKS =
+                MethodHandles.arrayElementVarHandle(Node[].class);
+        private final T data;
+        private final Node<T>[] next;
+        private final int topLevel;
+        private final boolean marker;
+
+        /**
+         * Creates an unlinked node.
+         *
+         * @param data data of the node, null for the head and tail
+         * @param topLevel highest level the node is linked into
+         */
+        private Node(T data, int topLevel) {
+            this.data = data;
+            this.topLevel = topLevel;
+            next = new Node[topLevel + 1];
+            marker = false;
+        }
+
+        /**
+         * Creates a marker.
+         *
+         * @param successor the successor of the marked link
+         */
+        private Node(Node<T> successor) {
+            data = null;
+            topLevel = 0;
+            next = new Node[] {successor};
+            marker = true;
+        }
+
+        /**
+         * Reads a link with volatile semantics.
+         *
+         * @param level level of the link
+         * @return the node or marker the link points to
+         */
+        private Node<T> link(int level) {
+            return (Node<T>) LINKS.getVolatile(next, level);
+        }
+
+        /**
+         * Writes a link with volatile semantics.
+         *
+         * @param level level of the link
+         * @param node the node or marker the link should point to
+         */
+        private void setLink(int level, Node<T> node) {
+            LINKS.setVolatile(next, level, node);
+        }
+
+        /**
+         * Atomically replaces a link if it still points where expected.
+         *
+         * @param level level of the link
+         * @param expected node the link should point to
+         * @param node the node or marker the link should point to
+         * @return whether the link was replaced
+         */
+        private boolean casLink(int level, Node<T> expected, Node<T> node) {
+            return LINKS.compareAndSet(next, level, expected, node);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An AVL tree of long keys, with the AVL API but without boxing.
+ *
+ * There are no node objects. A node is an index into parallel arrays
+ * (struct of arrays): keys, left and right child indices, and a byte
+ * height, from which balance factors are computed. Index 0 is a sentinel
+ * standing for null, with height -1, so heights of missing children need
+ * no check. Comparisons are on plain longs, and the nodes of a removed key
+ * are reused by later adds through a free list chained through left, so
+ * after the arrays have grown add and remove allocate nothing.
+ *
+ * Like AVL, add and remove are loops that record the path from the root
+ * and walk it back up, stopping once a subtree's height did not change.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class LongAVL {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_PATH = 48;
+    private static final int NIL = 0;
+    private final int[] path = new int[MAX_PATH];
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private byte[] height = new byte[INITIAL_CAPACITY];
+    private int root = NIL;
+    private int size;
+    private int used = 1;
+    private int free = NIL;
+    private int modCount;
+
+    /**
+     * Creates an empty tree.
+     */
+    public LongAVL() {
+        height[NIL] = -1;
+    }
+
+    /**
+     * Adds the key to the tree. Duplicates are ignored.
+     *
+     * @param key the key to be added
+     */
+    public void add(long key) {
+        int depth = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] == key) {
+                return;
+            }
+            path[depth++] = node;
+            node = (key < keys[node]) ? left[node] : right[node];
+        }
+        int leaf = allocate(key);
+        ++size;
+        ++modCount;
+        if (depth == 0) {
+            root = leaf;
+            return;
+        }
+        int parent = path[depth - 1];
+        if (key < keys[parent]) {
+            left[parent] = leaf;
+        } else {
+            right[parent] = leaf;
+        }
+        rebalance(depth);
+    }
+
+    /**
+     * Removes the key from the tree, replacing a node with two children by
+     * its predecessor like AVL does.
+     *
+     * @param key the key to remove from the tree
+     * @throws java.util.NoSuchElementException if the key is not found
+     * @return the key that was removed
+     */
+    public long remove(long key) {
+        int depth = 0;
+        int node = root;
+        while (node != NIL && keys[node] != key) {
+            path[depth++] = node;
+            node = (key < keys[node]) ? left[node] : right[node];
+        }
+        if (node == NIL) {
+            throw new NoSuchElementException("Key is not in the tree");
+        }
+        if (left[node] != NIL && right[node] != NIL) {
+            path[depth++] = node;
+            int predecessor = left[node];
+            while (right[predecessor] != NIL) {
+                path[depth++] = predecessor;
+                predecessor = right[predecessor];
+            }
+            keys[node] = keys[predecessor];
+            replaceChild(path[depth - 1], predecessor, left[predecessor]);
+            release(predecessor);
+        } else {
+            replaceChild((depth == 0) ? NIL : path[depth - 1], node,
+                    (left[node] != NIL) ? left[node] : right[node]);
+            release(node);
+        }
+        --size;
+        ++modCount;
+        rebalance(depth);
+        return key;
+    }
+
+    /**
+     * Returns the key in the tree equal to the parameter, for parity with
+     * AVL.get.
+     *
+     * @param key the key to search for
+     * @throws java.util.NoSuchElementException if the key is not found
+     * @return the key
+     */
+    public long get(long key) {
+        if (!contains(key)) {
+            throw new NoSuchElementException("Key was not found");
+        }
+        return key;
+    }
+
+    /**
+     * Returns whether the key is in the tree.
+     *
+     * @param key the key to search for
+     * @return whether the key is in the tree
+     */
+    public boolean contains(long key) {
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] == key) {
+                return true;
+            }
+            node = (key < keys[node]) ? left[node] : right[node];
+        }
+        return false;
+    }
+
+    /**
+     * Returns the keys on the branches of maximum depth, in preorder, like
+     * AVL.deepestBranches.
+     *
+     * @return the keys in branches of maximum depth in preorder traversal
+     * order
+     */
+    public long[] deepestBranches() {
+        long[] deep = new long[Math.min(size, INITIAL_CAPACITY)];
+        int count = 0;
+        int[] stack = new int[2 * MAX_PATH];
+        int top = 0;
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            if (count == deep.length) {
+                deep = Arrays.copyOf(deep, 2 * count);
+            }
+            deep[count++] = keys[node];
+            int childHeight = height[node] - 1;
+            if (right[node] != NIL && height[right[node]] == childHeight) {
+                stack[top++] = right[node];
+            }
+            if (left[node] != NIL && height[left[node]] == childHeight) {
+                stack[top++] = left[node];
+            }
+        }
+        return Arrays.copyOf(deep, count);
+    }
+
+    /**
+     * Returns the sorted keys that are > key1 and < key2, like
+     * AVL.sortedInBetween. Only the branches inside the range are explored.
+     *
+     * @param key1 the smaller key in the threshold
+     * @param key2 the larger key in the threshold
+     * @throws IllegalArgumentException if key1 > key2
+     * @return a sorted array of the keys that are > key1 and < key2
+     */
+    public long[] sortedInBetween(long key1, long key2) {
+        if (key1 > key2) {
+            throw new IllegalArgumentException("Key1 cannot be greater than"
+                    + " key2");
+        }
+        long[] sorted = new long[Math.min(size, INITIAL_CAPACITY)];
+        int count = 0;
+        int[] stack = new int[MAX_PATH];
+        int top = 0;
+        int node = root;
+        while (true) {
+            while (node != NIL) {
+                if (keys[node] > key1) {
+                    stack[top++] = node;
+                    node = left[node];
+                } else {
+                    node = right[node];
+                }
+            }
+            if (top == 0 || keys[stack[top - 1]] >= key2) {
+                return Arrays.copyOf(sorted, count);
+            }
+            node = stack[--top];
+            if (count == sorted.length) {
+                sorted = Arrays.copyOf(sorted, 2 * count);
+            }
+            sorted[count++] = keys[node];
+            node = right[node];
+        }
+    }
+
+    /**
+     * Returns an iterator over the keys in sorted order that hands out
+     * plain longs through nextLong.
+     *
+     * @return an iterator starting at the smallest key
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private final int[] stack = new int[MAX_PATH];
+            private final int expected = modCount;
+            private int top = pushLeft(stack, 0, root);
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                if (top == 0) {
+                    throw new NoSuchElementException("No more data");
+                }
+                int node = stack[--top];
+                top = pushLeft(stack, top, right[node]);
+                return keys[node];
+            }
+        };
+    }
+
+    /**
+     * Clears the tree. The arrays keep their capacity.
+     */
+    public void clear() {
+        root = NIL;
+        size = 0;
+        used = 1;
+        free = NIL;
+        ++modCount;
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int height() {
+        return height[root];
+    }
+
+    /**
+     * Returns the number of keys in the tree.
+     *
+     * @return number of keys in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * helper method that pushes a node and its chain of left children onto
+     * an iterator stack
+     *
+     * @param stack the stack
+     * @param top number of nodes on the stack
+     * @param node first node to push, may be NIL
+     * @return the new number of nodes on the stack
+     */
+    private int pushLeft(int[] stack, int top, int node) {
+        for (; node != NIL; node = left[node]) {
+            stack[top++] = node;
+        }
+        return top;
+    }
+
+    /**
+     * helper method that walks the recorded path back up to the root,
+     * updating heights and rotating where needed, until a subtree comes
+     * out with the height it had before
+     *
+     * @param depth number of nodes on the path
+     */
+    private void rebalance(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int before = height[node];
+            update(node);
+            int subtree = rotate(node);
+            if (subtree != node) {
+                replaceChild((i == 0) ? NIL : path[i - 1], node, subtree);
+            }
+            if (height[subtree] == before) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * helper method that puts a replacement where a child used to be
+     *
+     * @param parent parent of the child, or NIL if the child is the root
+     * @param child child being replaced
+     * @param replacement node taking its place, may be NIL
+     */
+    private void replaceChild(int parent, int child, int replacement) {
+        if (parent == NIL) {
+            root = replacement;
+        } else if (left[parent] == child) {
+            left[parent] = replacement;
+        } else {
+            right[parent] = replacement;
+        }
+    }
+
+    /**
+     * Updates the height of a node from its children.
+     *
+     * @param node node to be updated
+     */
+    private void update(int node) {
+        height[node] = (byte) (Math.max(height[left[node]],
+                height[right[node]]) + 1);
+    }
+
+    /**
+     * Rotates the subtree rooted at a node if it is out of balance.
+     *
+     * @param node root of the subtree
+     * @return new root of the subtree
+     */
+    private int rotate(int node) {
+        int bf = height[left[node]] - height[right[node]];
+        if (bf > 1) {
+            if (height[left[left[node]]] < height[right[left[node]]]) {
+                left[node] = leftRotation(left[node]);
+            }
+            return rightRotation(node);
+        } else if (bf < -1) {
+            if (height[right[right[node]]] < height[left[right[node]]]) {
+                right[node] = rightRotation(right[node]);
+            }
+            return leftRotation(node);
+        }
+        return node;
+    }
+
+    /**
+     * right rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private int rightRotation(int node) {
+        int leftChild = left[node];
+        left[node] = right[leftChild];
+        right[leftChild] = node;
+        update(node);
+        update(leftChild);
+        return leftChild;
+    }
+
+    /**
+     * left rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private int leftRotation(int node) {
+        int rightChild = right[node];
+        right[node] = left[rightChild];
+        left[rightChild] = node;
+        update(node);
+        update(rightChild);
+        return rightChild;
+    }
+
+    /**
+     * helper method that takes a node from the free list, or the next
+     * unused index, growing the arrays when they are full
+     *
+     * @param key key of the new leaf
+     * @return index of the new leaf
+     */
+    private int allocate(long key) {
+        int node = free;
+        if (node != NIL) {
+            free = left[node];
+        } else {
+            if (used == keys.length) {
+                int capacity = 2 * keys.length;
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                height = Arrays.copyOf(height, capacity);
+            }
+            node = used++;
+        }
+        keys[node] = key;
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 0;
+        return node;
+    }
+
+    /**
+     * helper method that puts a node no longer in the tree on the free list
+     *
+     * @param node index of the node
+     */
+    private void release(int node) {
+        left[node] = free;
+        free = node;
+    }
+}
@@ -0,0 +1,640 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A disk backed external chaining HashMap that keeps its bucket array and
+ * entries in a memory mapped file.
+ *
+ * The file is mapped in fixed size chunks with FileChannel.map, so the data
+ * lives in the operating system's page cache rather than on the Java heap,
+ * and reopening an existing file only maps it again instead of rebuilding
+ * anything. Keys and values are stored in their serialized form, and keys
+ * are hashed and compared by their bytes, so the layout does not depend on
+ * hashCode being stable between runs.
+ *
+ * File layout:
+ *   header (HEADER_SIZE bytes): magic, chunk size, size, bucket array
+ *   offset, bucket count and end of the used data
+ *   bucket array: one 8 byte record offset per bucket, 0 when empty
+ *   records: next record offset (8), hash (4), key length (4), value length
+ *   (4), key bytes, value bytes, padded to 8 bytes. A record never crosses a
+ *   chunk boundary.
+ *
+ * Storage is append only. Replacing a value with one of the same encoded
+ * length overwrites it in place, anything else appends a new record. When
+ * the load factor is exceeded, a new bucket array is appended and existing
+ * records are relinked into it one at a time, without reading them onto the
+ * heap. Space from removed records and old bucket arrays is not reclaimed.
+ * Writes are not crash atomic; call flush to force them to disk.
+ *
+ * Has the same API as HashMap. Not thread safe.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class MappedHashMap<K, V> implements Closeable {
+
+    public static final int INITIAL_CAPACITY = 11;
+    public static final double MAX_LOAD_FACTOR = 0.67;
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 26;
+    private static final int MAGIC = 0x4D484D32;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_HEADER = 20;
+    private static final int CHUNK_OFFSET = 4;
+    private static final int SIZE_OFFSET = 8;
+    private static final int BUCKETS_OFFSET = 16;
+    private static final int COUNT_OFFSET = 24;
+    private static final int END_OFFSET = 32;
+
+    private final FileChannel channel;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final int chunkSize;
+    private MappedByteBuffer[] chunks;
+    private long size;
+    private long buckets;
+    private long bucketCount;
+    private long end;
+
+    /**
+     * Opens the map stored in the given file, creating it with
+     * DEFAULT_CHUNK_SIZE chunks if it does not exist.
+     *
+     * @param file file that holds the map
+     * @param keySerializer serializer for keys
+     * @param valueSerializer serializer for values
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws IllegalArgumentException if an argument is null or the file is
+     * not a MappedHashMap
+     */
+    public MappedHashMap(Path file, Serializer<K> keySerializer,
+                         Serializer<V> valueSerializer) throws IOException {
+        this(file, keySerializer, valueSerializer, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Opens the map stored in the given file, creating it if it does not
+     * exist. An existing file keeps the chunk size it was created with.
+     *
+     * @param file file that holds the map
+     * @param keySerializer serializer for keys
+     * @param valueSerializer serializer for values
+     * @param chunkSize size of each mapped chunk for a new file, a multiple
+     * of 8. Bounds the largest record
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws IllegalArgumentException if an argument is null, the chunk
+     * size is invalid or the file is not a MappedHashMap
+     */
+    public MappedHashMap(Path file, Serializer<K> keySerializer,
+                         Serializer<V> valueSerializer, int chunkSize)
+            throws IOException {
+        if (file == null || keySerializer == null || valueSerializer == null) {
+            throw new IllegalArgumentException("File and serializers cannot"
+                    + " be null");
+        }
+        if (chunkSize < HEADER_SIZE + 8 * INITIAL_CAPACITY
+                || chunkSize % 8 != 0) {
+            throw new IllegalArgumentException("Chunk size must be a multiple"
+                    + " of 8 that fits the header and initial buckets");
+        }
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        chunks = new MappedByteBuffer[0];
+        try {
+            if (channel.size() == 0) {
+                this.chunkSize = chunkSize;
+                ensureMapped(HEADER_SIZE);
+                putInt(0, MAGIC);
+                putInt(CHUNK_OFFSET, chunkSize);
+                buckets = HEADER_SIZE;
+                bucketCount = INITIAL_CAPACITY;
+                end = buckets + 8 * bucketCount;
+                ensureMapped(end);
+                size = 0;
+                writeHeader();
+            } else {
+                ByteBuffer header = readHeader();
+                this.chunkSize = header.getInt(CHUNK_OFFSET);
+                size = header.getLong(SIZE_OFFSET);
+                buckets = header.getLong(BUCKETS_OFFSET);
+                bucketCount = header.getLong(COUNT_OFFSET);
+                end = header.getLong(END_OFFSET);
+                ensureMapped(end);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * helper method that reads the header of an existing file with a plain
+     * read and checks it before anything is mapped, since mapping for
+     * writing past the end of a file would grow it
+     *
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a MappedHashMap
+     * @return the header, with the fields at their file offsets
+     */
+    private ByteBuffer readHeader() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("File is not a"
+                    + " MappedHashMap");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IllegalArgumentException("File is not a"
+                        + " MappedHashMap");
+            }
+        }
+        int fileChunkSize = header.getInt(CHUNK_OFFSET);
+        long fileBuckets = header.getLong(BUCKETS_OFFSET);
+        long fileBucketCount = header.getLong(COUNT_OFFSET);
+        long fileEnd = header.getLong(END_OFFSET);
+        if (header.getInt(0) != MAGIC || fileChunkSize < HEADER_SIZE
+                || fileChunkSize % 8 != 0 || header.getLong(SIZE_OFFSET) < 0
+                || fileBuckets < HEADER_SIZE || fileBucketCount <= 0
+                || fileBucketCount > (fileEnd - fileBuckets) / 8
+                || fileEnd > fileSize) {
+            throw new IllegalArgumentException("File is not a"
+                    + " MappedHashMap");
+        }
+        return header;
+    }
+
+    /**
+     * Adds the given key-value pair to the map. A new key is added to the
+     * front of its chain. If the key is already in the map, its value is
+     * overwritten in place when the new value has the same encoded length,
+     * and otherwise replaced by a new record.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key or value is null, or the entry
+     * does not fit in one chunk
+     * @throws java.io.UncheckedIOException if the file cannot grow
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        if ((size + 1.0) / bucketCount > MAX_LOAD_FACTOR) {
+            resize(2 * bucketCount + 1);
+        }
+        byte[] k = serialize(keySerializer, key);
+        byte[] v = serialize(valueSerializer, value);
+        int hash = hash(k);
+        long slot = slotFor(hash);
+        long previous = 0;
+        long record = getLong(slot);
+        while (record != 0) {
+            if (matches(record, hash, k)) {
+                V old = readValue(record);
+                if (getInt(record + 16) == v.length) {
+                    putBytes(record + RECORD_HEADER + k.length, v);
+                } else {
+                    long replacement = append(hash, k, v, getLong(record));
+                    putLong((previous == 0) ? slot : previous, replacement);
+                }
+                return old;
+            }
+            previous = record;
+            record = getLong(record);
+        }
+        putLong(slot, append(hash, k, v, getLong(slot)));
+        size++;
+        putLong(SIZE_OFFSET, size);
+        return null;
+    }
+
+    /**
+     * Removes the entry with a matching key from the map. The record is
+     * unlinked from its chain but its space is not reused.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key does not exist
+     * @return the value previously associated with the key
+     */
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        byte[] k = serialize(keySerializer, key);
+        int hash = hash(k);
+        long slot = slotFor(hash);
+        long previous = 0;
+        long record = getLong(slot);
+        while (record != 0) {
+            if (matches(record, hash, k)) {
+                putLong((previous == 0) ? slot : previous, getLong(record));
+                size--;
+                putLong(SIZE_OFFSET, size);
+                return readValue(record);
+            }
+            previous = record;
+            record = getLong(record);
+        }
+        throw new NoSuchElementException("Key does not exist");
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        long record = find(key);
+        if (record == 0) {
+            throw new NoSuchElementException("Key does not exist");
+        }
+        return readValue(record);
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return find(key) != 0;
+    }
+
+    /**
+     * Moves every entry into a new bucket array of the specified length.
+     * Like HashMap, the load factor is disregarded.
+     *
+     * @param length new number of buckets
+     * @throws IllegalArgumentException if length is non-positive or less than
+     * the number of items in the map
+     * @throws java.io.UncheckedIOException if the file cannot grow
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Length cannot be negative"
+                    + " or less than size");
+        }
+        resize(length);
+    }
+
+    /**
+     * Returns a Set of the keys contained in this map, read onto the heap.
+     *
+     * @return set of keys in this map
+     */
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (long i = 0; i < bucketCount; i++) {
+            for (long r = getLong(buckets + 8 * i); r != 0; r = getLong(r)) {
+                set.add(keySerializer.read(slice(r + RECORD_HEADER,
+                        getInt(r + 12)), getInt(r + 12)));
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Returns a List of the values contained in this map, read onto the
+     * heap in order of increasing bucket and from the front to the back of
+     * each chain.
+     *
+     * @return list of values in this map
+     */
+    public List<V> values() {
+        List<V> list = new ArrayList<>();
+        for (long i = 0; i < bucketCount; i++) {
+            for (long r = getLong(buckets + 8 * i); r != 0; r = getLong(r)) {
+                list.add(readValue(r));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Clears the map and resets it to INITIAL_CAPACITY buckets right after
+     * the header. The file keeps its length.
+     */
+    public void clear() {
+        buckets = HEADER_SIZE;
+        bucketCount = INITIAL_CAPACITY;
+        for (long i = 0; i < bucketCount; i++) {
+            putLong(buckets + 8 * i, 0);
+        }
+        end = buckets + 8 * bucketCount;
+        size = 0;
+        writeHeader();
+    }
+
+    /**
+     * Returns the size of the map.
+     *
+     * @return number of items in the map
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Forces every change to the mapped file out to disk.
+     */
+    public void flush() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the file. The map cannot be used afterwards.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+    /**
+     * Finds the record for a key.
+     *
+     * @param key key to search for
+     * @return offset of the record, or 0 if the key is not in the map
+     */
+    private long find(K key) {
+        byte[] k = serialize(keySerializer, key);
+        int hash = hash(k);
+        for (long r = getLong(slotFor(hash)); r != 0; r = getLong(r)) {
+            if (matches(r, hash, k)) {
+                return r;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns whether a record holds the given serialized key.
+     *
+     * @param record offset of the record
+     * @param hash hash of the key
+     * @param key serialized key
+     * @return true if the record's key bytes equal the key, compared in
+     * place in the mapped file
+     */
+    private boolean matches(long record, int hash, byte[] key) {
+        if (getInt(record + 8) != hash || getInt(record + 12) != key.length) {
+            return false;
+        }
+        return slice(record + RECORD_HEADER, key.length)
+                .mismatch(ByteBuffer.wrap(key)) < 0;
+    }
+
+    /**
+     * Reads the value of a record onto the heap.
+     *
+     * @param record offset of the record
+     * @return the deserialized value
+     */
+    private V readValue(long record) {
+        int keyLength = getInt(record + 12);
+        int valueLength = getInt(record + 16);
+        return valueSerializer.read(slice(record + RECORD_HEADER + keyLength,
+                valueLength), valueLength);
+    }
+
+    /**
+     * Appends a record, starting a new chunk if it would not fit in the
+     * current one.
+     *
+     * @param hash hash of the key
+     * @param key serialized key
+     * @param value serialized value
+     * @param next offset of the next record in the chain
+     * @return offset of the new record
+     */
+    private long append(int hash, byte[] key, byte[] value, long next) {
+        long length = RECORD_HEADER + key.length + value.length;
+        if (length > chunkSize) {
+            throw new IllegalArgumentException("Entry is larger than a chunk");
+        }
+        long record = end;
+        if (record / chunkSize != (record + length - 1) / chunkSize) {
+            record = (record / chunkSize + 1) * chunkSize;
+        }
+        ensureMapped(record + length);
+        putLong(record, next);
+        putInt(record + 8, hash);
+        putInt(record + 12, key.length);
+        putInt(record + 16, value.length);
+        putBytes(record + RECORD_HEADER, key);
+        putBytes(record + RECORD_HEADER + key.length, value);
+        end = (record + length + 7) & ~7L;
+        putLong(END_OFFSET, end);
+        return record;
+    }
+
+    /**
+     * Appends a new bucket array and relinks every record into it.
+     *
+     * @param length new number of buckets
+     */
+    private void resize(long length) {
+        long newBuckets = end;
+        long newEnd = newBuckets + 8 * length;
+        ensureMapped(newEnd);
+        for (long i = 0; i < length; i++) {
+            putLong(newBuckets + 8 * i, 0);
+        }
+        for (long i = 0; i < bucketCount; i++) {
+            long r = getLong(buckets + 8 * i);
+            while (r != 0) {
+                long next = getLong(r);
+                long slot = newBuckets + 8 * ((getInt(r + 8) & 0x7FFFFFFFL)
+                        % length);
+                putLong(r, getLong(slot));
+                putLong(slot, r);
+                r = next;
+            }
+        }
+        buckets = newBuckets;
+        bucketCount = length;
+        end = newEnd;
+        writeHeader();
+    }
+
+    /**
+     * Returns the offset of the bucket slot for a hash.
+     *
+     * @param hash hash of a key
+     * @return offset of the bucket's first record pointer
+     */
+    private long slotFor(int hash) {
+        return buckets + 8 * ((hash & 0x7FFFFFFFL) % bucketCount);
+    }
+
+    /**
+     * Hashes serialized key bytes with FNV-1a followed by the murmur3
+     * finalizer, so the hash is the same in every run.
+     *
+     * @param bytes serialized key
+     * @return hash of the bytes
+     */
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Serializes a value onto the heap.
+     *
+     * @param serializer serializer to use
+     * @param value value to serialize
+     * @param <T> type of the value
+     * @return the encoded bytes
+     */
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) {
+        byte[] bytes = new byte[serializer.size(value)];
+        serializer.write(value, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /**
+     * Writes the in memory copy of the header fields to the file.
+     */
+    private void writeHeader() {
+        putLong(SIZE_OFFSET, size);
+        putLong(BUCKETS_OFFSET, buckets);
+        putLong(COUNT_OFFSET, bucketCount);
+        putLong(END_OFFSET, end);
+    }
+
+    /**
+     * Grows the file and maps more chunks until the given offset is mapped.
+     *
+     * @param limit offset that must be mapped
+     * @throws java.io.UncheckedIOException if the file cannot grow
+     */
+    private void ensureMapped(long limit) {
+        int needed = (int) ((limit + chunkSize - 1) / chunkSize);
+        if (needed <= chunks.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(chunks, needed);
+        try {
+            for (int i = chunks.length; i < needed; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) i * chunkSize, chunkSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunks = grown;
+    }
+
+    /**
+     * Returns a buffer over part of one chunk, positioned at its start.
+     *
+     * @param offset file offset of the first byte
+     * @param length number of bytes
+     * @return buffer over the bytes
+     */
+    private ByteBuffer slice(long offset, int length) {
+        return chunks[(int) (offset / chunkSize)]
+                .slice((int) (offset % chunkSize), length);
+    }
+
+    /**
+     * Reads a long at a file offset.
+     *
+     * @param offset 8 byte aligned file offset
+     * @return the long
+     */
+    private long getLong(long offset) {
+        return chunks[(int) (offset / chunkSize)]
+                .getLong((int) (offset % chunkSize));
+    }
+
+    /**
+     * Writes a long at a file offset.
+     *
+     * @param offset 8 byte aligned file offset
+     * @param value value to write
+     */
+    private void putLong(long offset, long value) {
+        chunks[(int) (offset / chunkSize)]
+                .putLong((int) (offset % chunkSize), value);
+    }
+
+    /**
+     * Reads an int at a file offset inside a record or the header.
+     *
+     * @param offset file offset
+     * @return the int
+     */
+    private int getInt(long offset) {
+        return chunks[(int) (offset / chunkSize)]
+                .getInt((int) (offset % chunkSize));
+    }
+
+    /**
+     * Writes an int at a file offset inside a record or the header.
+     *
+     * @param offset file offset
+     * @param value value to write
+     */
+    private void putInt(long offset, int value) {
+        chunks[(int) (offset / chunkSize)]
+                .putInt((int) (offset % chunkSize), value);
+    }
+
+    /**
+     * Writes bytes at a file offset inside a record.
+     *
+     * @param offset file offset
+     * @param bytes bytes to write
+     */
+    private void putBytes(long offset, byte[] bytes) {
+        chunks[(int) (offset / chunkSize)]
+                .put((int) (offset % chunkSize), bytes);
+    }
+}
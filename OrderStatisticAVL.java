@@ -0,0 +1,441 @@
+import java.util.Collection;
+import java.util.NoSuchElementException;
+
+/**
+ * An AVL tree whose nodes also store the size of their subtree, so that
+ * rank and select queries run in O(log n) instead of needing a traversal.
+ *
+ * Subtree sizes are kept up to date by add, remove and every rotation, the
+ * same way heights are. Like AVL, add and remove are loops that record the
+ * path from the root and walk it back up; here the walk always reaches the
+ * root, since every ancestor's size changes.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class OrderStatisticAVL<T extends Comparable<? super T>> {
+
+    private static final int MAX_PATH = 48;
+    private Node<T> root;
+
+    /**
+     * Creates an empty tree.
+     */
+    public OrderStatisticAVL() {
+    }
+
+    /**
+     * Creates a tree with the data in the Collection, added in iteration
+     * order.
+     *
+     * @param data the data to add to the tree
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public OrderStatisticAVL(Collection<T> data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        for (T newData : data) {
+            if (newData == null) {
+                throw new IllegalArgumentException("Data cannot be null");
+            }
+            add(newData);
+        }
+    }
+
+    /**
+     * Adds the data to the tree. Duplicates are ignored.
+     *
+     * @param data the data to be added
+     * @throws IllegalArgumentException if the data is null
+     */
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T>[] path = new Node[MAX_PATH];
+        int depth = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return;
+            }
+            path[depth++] = node;
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        Node<T> leaf = new Node<>(data);
+        if (depth == 0) {
+            root = leaf;
+            return;
+        }
+        Node<T> parent = path[depth - 1];
+        if (parent.data.compareTo(data) > 0) {
+            parent.left = leaf;
+        } else {
+            parent.right = leaf;
+        }
+        rebalance(path, depth);
+    }
+
+    /**
+     * Removes the data from the tree, replacing a node with two children by
+     * its predecessor like AVL does.
+     *
+     * @param data the data to remove from the tree
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data that was stored in the tree
+     */
+    public T remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T>[] path = new Node[MAX_PATH];
+        int depth = 0;
+        Node<T> node = root;
+        int cmp;
+        while (node != null && (cmp = node.data.compareTo(data)) != 0) {
+            path[depth++] = node;
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        if (node == null) {
+            throw new NoSuchElementException("Data is not in the tree");
+        }
+        T removed = node.data;
+        if (node.left != null && node.right != null) {
+            path[depth++] = node;
+            Node<T> predecessor = node.left;
+            while (predecessor.right != null) {
+                path[depth++] = predecessor;
+                predecessor = predecessor.right;
+            }
+            node.data = predecessor.data;
+            replaceChild(path[depth - 1], predecessor, predecessor.left);
+        } else {
+            replaceChild((depth == 0) ? null : path[depth - 1], node,
+                    (node.left != null) ? node.left : node.right);
+        }
+        rebalance(path, depth);
+        return removed;
+    }
+
+    /**
+     * Returns the data in the tree equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data stored in the tree
+     */
+    public T get(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return node.data;
+            }
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        throw new NoSuchElementException("Data was not found");
+    }
+
+    /**
+     * Returns whether data equal to the parameter is in the tree.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return whether the data is in the tree
+     */
+    public boolean contains(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return true;
+            }
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of data in the tree strictly less than the
+     * parameter, which is also the index the data has or would have in
+     * sorted order. The data does not have to be in the tree.
+     *
+     * Runs in O(log n).
+     *
+     * @param data the data to rank
+     * @throws IllegalArgumentException if the data is null
+     * @return number of data less than the parameter
+     */
+    public int rank(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp < 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else if (cmp > 0) {
+                node = node.left;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the data at the given index in sorted order, so select(0) is
+     * the smallest data and select(size() - 1) the largest.
+     *
+     * Runs in O(log n).
+     *
+     * @param index index in sorted order
+     * @throws IndexOutOfBoundsException if index is negative or not less than
+     * size
+     * @return the data with exactly index smaller data in the tree
+     */
+    public T select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index is out of bounds");
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.data;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of data x in the tree with lo <= x <= hi.
+     *
+     * Runs in O(log n).
+     *
+     * @param lo smallest data to count
+     * @param hi largest data to count
+     * @throws IllegalArgumentException if lo or hi is null or lo > hi
+     * @return number of data in [lo, hi]
+     */
+    public int countInRange(T lo, T hi) {
+        if (lo == null || hi == null) {
+            throw new IllegalArgumentException("Bounds cannot be null");
+        }
+        if (lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException("Lo cannot be greater than"
+                    + " hi");
+        }
+        int count = rank(hi) - rank(lo);
+        return contains(hi) ? count + 1 : count;
+    }
+
+    /**
+     * Returns the data at the given percentile using the nearest rank
+     * method: the smallest data that at least percentile percent of the
+     * tree is less than or equal to. percentile(50) is the lower median and
+     * percentile(100) the largest data.
+     *
+     * Runs in O(log n).
+     *
+     * @param percentile percentile from 0 to 100
+     * @throws IllegalArgumentException if percentile is not in [0, 100]
+     * @throws java.util.NoSuchElementException if the tree is empty
+     * @return the data at that percentile
+     */
+    public T percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be from 0 to"
+                    + " 100");
+        }
+        if (root == null) {
+            throw new NoSuchElementException("The tree is empty");
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size());
+        return select(Math.max(rank, 1) - 1);
+    }
+
+    /**
+     * Clears the tree.
+     */
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Returns the number of data in the tree. O(1), read from the root.
+     *
+     * @return number of data in the tree
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * helper method that walks a recorded path back up to the root,
+     * updating heights and sizes and rotating where needed
+     *
+     * @param path nodes from the root down, path[0] being the root
+     * @param depth number of nodes on the path
+     */
+    private void rebalance(Node<T>[] path, int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<T> node = path[i];
+            update(node);
+            Node<T> subtree = rotate(node);
+            if (subtree != node) {
+                replaceChild((i == 0) ? null : path[i - 1], node, subtree);
+            }
+        }
+    }
+
+    /**
+     * helper method that puts a replacement where a child used to be
+     *
+     * @param parent parent of the child, or null if the child is the root
+     * @param child child being replaced
+     * @param replacement node taking its place, may be null
+     */
+    private void replaceChild(Node<T> parent, Node<T> child,
+                              Node<T> replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    /**
+     * Updates the height and subtree size of a node from its children.
+     *
+     * @param node node to be updated
+     */
+    private static void update(Node<?> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Rotates the subtree rooted at a node if it is out of balance.
+     *
+     * @param node root of the subtree
+     * @return new root of the subtree
+     */
+    private Node<T> rotate(Node<T> node) {
+        int bf = height(node.left) - height(node.right);
+        if (bf > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = leftRotation(node.left);
+            }
+            return rightRotation(node);
+        } else if (bf < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rightRotation(node.right);
+            }
+            return leftRotation(node);
+        }
+        return node;
+    }
+
+    /**
+     * right rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private Node<T> rightRotation(Node<T> node) {
+        Node<T> leftChild = node.left;
+        node.left = leftChild.right;
+        leftChild.right = node;
+        update(node);
+        update(leftChild);
+        return leftChild;
+    }
+
+    /**
+     * left rotation to balance the subtree
+     *
+     * @param node root of subtree to rotate
+     * @return new root of subtree
+     */
+    private Node<T> leftRotation(Node<T> node) {
+        Node<T> rightChild = node.right;
+        node.right = rightChild.left;
+        rightChild.left = node;
+        update(node);
+        update(rightChild);
+        return rightChild;
+    }
+
+    /**
+     * Returns the height of a possibly null node.
+     *
+     * @param node the node
+     * @return its height, -1 for null
+     */
+    private static int height(Node<?> node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    /**
+     * Returns the subtree size of a possibly null node.
+     *
+     * @param node the node
+     * @return its subtree size, 0 for null
+     */
+    private static int size(Node<?> node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    /**
+     * A tree node that knows the size of its subtree.
+     *
+     * @param <T> data type
+     */
+    private static final class Node<T> {
+        private T data;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+        private int size = 1;
+
+        /**
+         * Creates a leaf.
+         *
+         * @param data data of the node
+         */
+        private Node(T data) {
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An AVL tree made of immutable nodes, for readers that need consistent
+ * snapshots while a writer keeps changing the tree.
+ *
+ * Adding or removing data never changes a node. Instead the nodes on the
+ * path from the root to the change are copied (path copying), and the new
+ * path shares every other subtree with the old version, so an update costs
+ * O(log n) time and memory. Each version is a Snapshot, and the current one
+ * is published through an AtomicReference: snapshot() is a single volatile
+ * read, readers never block, and since a version is complete before it is
+ * published, a reader can never see a rotation half done.
+ *
+ * Updates retry with compareAndSet, so several writers are also safe,
+ * although they then contend on the reference.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class PersistentAVL<T extends Comparable<? super T>> {
+
+    private static final int MAX_PATH = 48;
+    private final AtomicReference<Snapshot<T>> current =
+            new AtomicReference<>(new Snapshot<>(null, 0));
+
+    /**
+     * Adds the data, publishing a new version. Duplicates are ignored and
+     * publish nothing.
+     *
+     * @param data the data to be added
+     * @throws IllegalArgumentException if the data is null
+     */
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        current.updateAndGet(snapshot -> snapshot.add(data));
+    }
+
+    /**
+     * Removes the data, publishing a new version.
+     *
+     * @param data the data to remove
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data that was stored in the tree
+     */
+    public T remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        while (true) {
+            Snapshot<T> snapshot = current.get();
+            T removed = snapshot.get(data);
+            if (current.compareAndSet(snapshot, snapshot.remove(data))) {
+                return removed;
+            }
+        }
+    }
+
+    /**
+     * Returns the data in the current version equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data stored in the tree
+     */
+    public T get(T data) {
+        return current.get().get(data);
+    }
+
+    /**
+     * Returns whether the current version has data equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return whether the data is in the tree
+     */
+    public boolean contains(T data) {
+        return current.get().contains(data);
+    }
+
+    /**
+     * Returns the current version. It never changes, however many updates
+     * are published after it, so it can be read without locking for as long
+     * as the caller likes.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot<T> snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Publishes an empty version.
+     */
+    public void clear() {
+        current.set(new Snapshot<>(null, 0));
+    }
+
+    /**
+     * Returns the size of the current version.
+     *
+     * @return number of data in the tree
+     */
+    public int size() {
+        return current.get().size();
+    }
+
+    /**
+     * Returns the height of the current version.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int height() {
+        return current.get().height();
+    }
+
+    /**
+     * One immutable version of the tree. add and remove return a new
+     * snapshot and leave this one as it was.
+     *
+     * @param <T> data type
+     */
+    public static final class Snapshot<T extends Comparable<? super T>>
+            implements Iterable<T> {
+        private final Node<T> root;
+        private final int size;
+
+        /**
+         * Creates a snapshot.
+         *
+         * @param root root of the version
+         * @param size number of data in the version
+         */
+        private Snapshot(Node<T> root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * Returns a version with the data added.
+         *
+         * @param data the data to be added
+         * @throws IllegalArgumentException if the data is null
+         * @return the new version, or this one if the data was already in it
+         */
+        public Snapshot<T> add(T data) {
+            if (data == null) {
+                throw new IllegalArgumentException("Data cannot be null");
+            }
+            Node<T> newRoot = PersistentAVL.add(root, data);
+            return (newRoot == root) ? this : new Snapshot<>(newRoot, size + 1);
+        }
+
+        /**
+         * Returns a version with the data removed. A node with two children
+         * is replaced by its predecessor, like in AVL.
+         *
+         * @param data the data to remove
+         * @throws IllegalArgumentException if the data is null
+         * @throws java.util.NoSuchElementException if the data is not found
+         * @return the new version
+         */
+        public Snapshot<T> remove(T data) {
+            if (data == null) {
+                throw new IllegalArgumentException("Data cannot be null");
+            }
+            return new Snapshot<>(PersistentAVL.remove(root, data), size - 1);
+        }
+
+        /**
+         * Returns the data in this version equal to the parameter.
+         *
+         * @param data the data to search for
+         * @throws IllegalArgumentException if the data is null
+         * @throws java.util.NoSuchElementException if the data is not found
+         * @return the data stored in the tree
+         */
+        public T get(T data) {
+            Node<T> node = find(data);
+            if (node == null) {
+                throw new NoSuchElementException("Data was not found");
+            }
+            return node.data;
+        }
+
+        /**
+         * Returns whether this version has data equal to the parameter.
+         *
+         * @param data the data to search for
+         * @throws IllegalArgumentException if the data is null
+         * @return whether the data is in the tree
+         */
+        public boolean contains(T data) {
+            return find(data) != null;
+        }
+
+        /**
+         * Returns a sorted list of the data that are > data1 and < data2,
+         * like AVL.sortedInBetween.
+         *
+         * @param data1 the smaller data in the threshold
+         * @param data2 the larger data in the threshold
+         * @throws IllegalArgumentException if data1 or data2 are null or if
+         * data1 > data2
+         * @return a sorted list of data that is > data1 and < data2
+         */
+        public List<T> sortedInBetween(T data1, T data2) {
+            if (data1 == null || data2 == null) {
+                throw new IllegalArgumentException("Data cannot be null");
+            }
+            if (data1.compareTo(data2) > 0) {
+                throw new IllegalArgumentException("Data1 cannot be greater"
+                        + " than data2");
+            }
+            List<T> sorted = new ArrayList<>();
+            Node<T>[] stack = new Node[MAX_PATH];
+            int depth = 0;
+            Node<T> node = root;
+            while (true) {
+                while (node != null) {
+                    if (node.data.compareTo(data1) > 0) {
+                        stack[depth++] = node;
+                        node = node.left;
+                    } else {
+                        node = node.right;
+                    }
+                }
+                if (depth == 0) {
+                    return sorted;
+                }
+                node = stack[--depth];
+                if (node.data.compareTo(data2) >= 0) {
+                    return sorted;
+                }
+                sorted.add(node.data);
+                node = node.right;
+            }
+        }
+
+        /**
+         * Returns an iterator over this version in sorted order. Nothing can
+         * change the version, so the iterator needs no checks.
+         *
+         * @return an iterator starting at the smallest data
+         */
+        @Override
+        public Iterator<T> iterator() {
+            Node<T>[] stack = new Node[MAX_PATH];
+            int depth = 0;
+            for (Node<T> node = root; node != null; node = node.left) {
+                stack[depth++] = node;
+            }
+            int start = depth;
+            return new Iterator<T>() {
+                private int top = start;
+
+                @Override
+                public boolean hasNext() {
+                    return top > 0;
+                }
+
+                @Override
+                public T next() {
+                    if (top == 0) {
+                        throw new NoSuchElementException("No more data");
+                    }
+                    Node<T> node = stack[--top];
+                    for (Node<T> child = node.right; child != null;
+                            child = child.left) {
+                        stack[top++] = child;
+                    }
+                    return node.data;
+                }
+            };
+        }
+
+        /**
+         * Returns the number of data in this version.
+         *
+         * @return number of data
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the height of this version.
+         *
+         * @return the height of the root, -1 if the version is empty
+         */
+        public int height() {
+            return PersistentAVL.height(root);
+        }
+
+        /**
+         * helper method that finds the node holding data equal to the
+         * parameter
+         *
+         * @param data the data being searched for
+         * @throws IllegalArgumentException if the data is null
+         * @return the node, or null if the data is not in the version
+         */
+        private Node<T> find(T data) {
+            if (data == null) {
+                throw new IllegalArgumentException("Data cannot be null");
+            }
+            Node<T> node = root;
+            while (node != null) {
+                int cmp = node.data.compareTo(data);
+                if (cmp == 0) {
+                    return node;
+                }
+                node = (cmp > 0) ? node.left : node.right;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * helper method that returns a copy of a subtree with the data added,
+     * sharing every subtree off the search path
+     *
+     * @param node root of the subtree, may be null
+     * @param data the data to be added
+     * @param <T> data type
+     * @return root of the new subtree, or node itself if the data was
+     * already there
+     */
+    private static <T extends Comparable<? super T>> Node<T> add(
+            Node<T> node, T data) {
+        if (node == null) {
+            return new Node<>(data, null, null);
+        }
+        int cmp = node.data.compareTo(data);
+        if (cmp == 0) {
+            return node;
+        }
+        if (cmp > 0) {
+            Node<T> left = add(node.left, data);
+            return (left == node.left) ? node
+                    : balance(node.data, left, node.right);
+        }
+        Node<T> right = add(node.right, data);
+        return (right == node.right) ? node
+                : balance(node.data, node.left, right);
+    }
+
+    /**
+     * helper method that returns a copy of a subtree with the data removed
+     *
+     * @param node root of the subtree, may be null
+     * @param data the data to remove
+     * @param <T> data type
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return root of the new subtree
+     */
+    private static <T extends Comparable<? super T>> Node<T> remove(
+            Node<T> node, T data) {
+        if (node == null) {
+            throw new NoSuchElementException("Data is not in the tree");
+        }
+        int cmp = node.data.compareTo(data);
+        if (cmp > 0) {
+            return balance(node.data, remove(node.left, data), node.right);
+        }
+        if (cmp < 0) {
+            return balance(node.data, node.left, remove(node.right, data));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<T> predecessor = node.left;
+        while (predecessor.right != null) {
+            predecessor = predecessor.right;
+        }
+        return balance(predecessor.data, removeLast(node.left), node.right);
+    }
+
+    /**
+     * helper method that returns a copy of a subtree without its largest
+     * data
+     *
+     * @param node root of a non-empty subtree
+     * @param <T> data type
+     * @return root of the new subtree
+     */
+    private static <T extends Comparable<? super T>> Node<T> removeLast(
+            Node<T> node) {
+        if (node.right == null) {
+            return node.left;
+        }
+        return balance(node.data, node.left, removeLast(node.right));
+    }
+
+    /**
+     * helper method that creates a node over two subtrees whose heights
+     * differ by at most 2, rotating with new nodes if they differ by 2
+     *
+     * @param data data of the node
+     * @param left left subtree
+     * @param right right subtree
+     * @param <T> data type
+     * @return root of the balanced subtree
+     */
+    private static <T extends Comparable<? super T>> Node<T> balance(
+            T data, Node<T> left, Node<T> right) {
+        int bf = height(left) - height(right);
+        if (bf > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.data, left.left, left.right);
+            }
+            return rotateRight(data, left, right);
+        }
+        if (bf < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.data, right.left, right.right);
+            }
+            return rotateLeft(data, left, right);
+        }
+        return new Node<>(data, left, right);
+    }
+
+    /**
+     * right rotation of the node that would hold data over left and right,
+     * building new nodes instead of relinking
+     *
+     * @param data data of the node being rotated down
+     * @param left its left subtree, which becomes the new root
+     * @param right its right subtree
+     * @param <T> data type
+     * @return new root of the subtree
+     */
+    private static <T extends Comparable<? super T>> Node<T> rotateRight(
+            T data, Node<T> left, Node<T> right) {
+        return new Node<>(left.data, left.left,
+                new Node<>(data, left.right, right));
+    }
+
+    /**
+     * left rotation of the node that would hold data over left and right,
+     * building new nodes instead of relinking
+     *
+     * @param data data of the node being rotated down
+     * @param left its left subtree
+     * @param right its right subtree, which becomes the new root
+     * @param <T> data type
+     * @return new root of the subtree
+     */
+    private static <T extends Comparable<? super T>> Node<T> rotateLeft(
+            T data, Node<T> left, Node<T> right) {
+        return new Node<>(right.data, new Node<>(data, left, right.left),
+                right.right);
+    }
+
+    /**
+     * Returns the height of a possibly null node.
+     *
+     * @param node the node
+     * @return its height, -1 for null
+     */
+    private static int height(Node<?> node) {
+        return (node == null) ? -1 : node.height;
+    }
+
+    /**
+     * An immutable tree node. Its height is computed once, from its
+     * children, when it is created.
+     *
+     * @param <T> data type
+     */
+    private static final class Node<T> {
+        private final T data;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int height;
+
+        /**
+         * Creates a node.
+         *
+         * @param data data of the node
+         * @param left left child, may be null
+         * @param right right child, may be null
+         */
+        private Node(T data, Node<T> left, Node<T> right) {
+            this.data = data;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(PersistentAVL.height(left),
+                    PersistentAVL.height(right)) + 1;
+        }
+    }
+}
@@ -0,0 +1,562 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A red-black tree with the same API as AVL, for workloads that remove as
+ * often as they add.
+ *
+ * An AVL remove may have to rotate at every level on the way back up, and
+ * updates heights at every level until one stays the same. A red-black
+ * tree is balanced more loosely (its height is at most 2 log n instead of
+ * about 1.44 log n), and in return an add rotates at most twice and a
+ * remove at most three times. The recoloring that walks up the tree stops
+ * after O(1) steps amortized.
+ *
+ * Nodes link to their parents, so add and remove fix the tree up with
+ * loops and no recorded path. The balancing follows Cormen et al., except
+ * that a node with two children is replaced by its predecessor like in AVL.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class RedBlackTree<T extends Comparable<? super T>>
+        implements Iterable<T> {
+
+    private Node<T> root;
+    private int size;
+    private int modCount;
+
+    /**
+     * Adds the data to the tree. Duplicates are ignored.
+     *
+     * @param data the data to be added
+     * @throws IllegalArgumentException if the data is null
+     */
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T> parent = null;
+        Node<T> node = root;
+        int cmp = 0;
+        while (node != null) {
+            cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return;
+            }
+            parent = node;
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        Node<T> leaf = new Node<>(data, parent);
+        if (parent == null) {
+            root = leaf;
+        } else if (cmp > 0) {
+            parent.left = leaf;
+        } else {
+            parent.right = leaf;
+        }
+        ++size;
+        ++modCount;
+        fixAfterAdd(leaf);
+    }
+
+    /**
+     * Removes the data from the tree, replacing a node with two children by
+     * its predecessor like AVL does.
+     *
+     * @param data the data to remove from the tree
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data that was stored in the tree
+     */
+    public T remove(T data) {
+        Node<T> node = find(data);
+        if (node == null) {
+            throw new NoSuchElementException("Data is not in the tree");
+        }
+        T removed = node.data;
+        if (node.left != null && node.right != null) {
+            Node<T> predecessor = node.left;
+            while (predecessor.right != null) {
+                predecessor = predecessor.right;
+            }
+            node.data = predecessor.data;
+            node = predecessor;
+        }
+        Node<T> child = (node.left != null) ? node.left : node.right;
+        if (child != null) {
+            child.parent = node.parent;
+            replaceChild(node, child);
+            if (!node.red) {
+                fixAfterRemove(child);
+            }
+        } else if (node.parent == null) {
+            root = null;
+        } else {
+            if (!node.red) {
+                fixAfterRemove(node);
+            }
+            replaceChild(node, null);
+        }
+        --size;
+        ++modCount;
+        return removed;
+    }
+
+    /**
+     * Returns the data in the tree equal to the parameter.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @return the data stored in the tree
+     */
+    public T get(T data) {
+        Node<T> node = find(data);
+        if (node == null) {
+            throw new NoSuchElementException("Data was not found");
+        }
+        return node.data;
+    }
+
+    /**
+     * Returns whether data equal to the parameter is in the tree.
+     *
+     * @param data the data to search for
+     * @throws IllegalArgumentException if the data is null
+     * @return whether the data is in the tree
+     */
+    public boolean contains(T data) {
+        return find(data) != null;
+    }
+
+    /**
+     * Returns the data on the branches of maximum depth, in preorder, like
+     * AVL.deepestBranches. Nodes do not store heights, so the first pass
+     * finds the height of the tree and the second keeps every node whose
+     * subtree reaches that depth. The second pass is a postorder walk over
+     * the parent links that visits right before left, so only a flag per
+     * level is needed, and reversing what it keeps gives preorder.
+     *
+     * @return the list of data in branches of maximum depth in preorder
+     * traversal order
+     */
+    public List<T> deepestBranches() {
+        int height = height();
+        List<T> deep = new ArrayList<>();
+        boolean[] reaches = new boolean[height + 2];
+        Node<T> last = null;
+        Node<T> node = root;
+        int depth = 0;
+        while (node != null) {
+            Node<T> next = null;
+            if (last == node.parent) {
+                reaches[depth + 1] = false;
+                next = (node.right != null) ? node.right : node.left;
+            } else if (last == node.right) {
+                next = node.left;
+            }
+            last = node;
+            if (next != null) {
+                node = next;
+                ++depth;
+                continue;
+            }
+            if (depth == height || reaches[depth + 1]) {
+                deep.add(node.data);
+                reaches[depth] = true;
+            }
+            node = node.parent;
+            --depth;
+        }
+        Collections.reverse(deep);
+        return deep;
+    }
+
+    /**
+     * Returns a sorted list of the data that are > data1 and < data2, like
+     * AVL.sortedInBetween. Finds the first one and then follows successors.
+     *
+     * @param data1 the smaller data in the threshold
+     * @param data2 the larger data in the threshold
+     * @throws IllegalArgumentException if data1 or data2 are null
+     * or if data1 > data2
+     * @return a sorted list of data that is > data1 and < data2
+     */
+    public List<T> sortedInBetween(T data1, T data2) {
+        if (data1 == null) {
+            throw new IllegalArgumentException("Data1 cannot be null");
+        }
+        if (data2 == null) {
+            throw new IllegalArgumentException("Data2 cannot be null");
+        }
+        if (data1.compareTo(data2) > 0) {
+            throw new IllegalArgumentException("Data1 cannot be greater than"
+                    + " data2");
+        }
+        Node<T> first = null;
+        for (Node<T> node = root; node != null;) {
+            if (node.data.compareTo(data1) > 0) {
+                first = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        List<T> sorted = new ArrayList<>();
+        for (Node<T> node = first; node != null
+                && node.data.compareTo(data2) < 0; node = successor(node)) {
+            sorted.add(node.data);
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns an iterator over the tree in sorted order.
+     *
+     * @return an iterator starting at the smallest data
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Node<T> first = root;
+        while (first != null && first.left != null) {
+            first = first.left;
+        }
+        Node<T> start = first;
+        return new Iterator<T>() {
+            private final int expected = modCount;
+            private Node<T> next = start;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException("No more data");
+                }
+                T data = next.data;
+                next = successor(next);
+                return data;
+            }
+        };
+    }
+
+    /**
+     * Clears the tree.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+        ++modCount;
+    }
+
+    /**
+     * Returns the height of the root of the tree. Nodes do not store
+     * heights, so this visits every node, keeping the depth of each node on
+     * the stack in a parallel int array.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int height() {
+        int height = -1;
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        int[] depths = new int[16];
+        if (root != null) {
+            stack.push(root);
+        }
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            int depth = depths[stack.size()];
+            height = Math.max(height, depth);
+            if (stack.size() + 2 > depths.length) {
+                depths = Arrays.copyOf(depths, 2 * depths.length);
+            }
+            if (node.right != null) {
+                depths[stack.size()] = depth + 1;
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                depths[stack.size()] = depth + 1;
+                stack.push(node.left);
+            }
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of data in the tree.
+     *
+     * @return number of data in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * helper method that finds the node holding data equal to the parameter
+     *
+     * @param data the data being searched for
+     * @throws IllegalArgumentException if the data is null
+     * @return the node, or null if the data is not in the tree
+     */
+    private Node<T> find(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = node.data.compareTo(data);
+            if (cmp == 0) {
+                return node;
+            }
+            node = (cmp > 0) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * helper method that returns the next node in sorted order
+     *
+     * @param node the current node
+     * @return the next node, or null if node is the last one
+     */
+    private static <T> Node<T> successor(Node<T> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        while (node.parent != null && node.parent.right == node) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    /**
+     * helper method that restores the red-black properties after a red leaf
+     * was added. While the node's parent is red too: a red uncle means
+     * recoloring and moving the problem up to the grandparent, a black
+     * uncle means one single or double rotation, after which the tree is
+     * fixed.
+     *
+     * @param node the new leaf
+     */
+    private void fixAfterAdd(Node<T> node) {
+        while (node != root && node.parent.red) {
+            Node<T> parent = node.parent;
+            Node<T> grandparent = parent.parent;
+            if (parent == grandparent.left) {
+                Node<T> uncle = grandparent.right;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    node = grandparent;
+                } else {
+                    if (node == parent.right) {
+                        node = parent;
+                        leftRotation(node);
+                        parent = node.parent;
+                    }
+                    parent.red = false;
+                    grandparent.red = true;
+                    rightRotation(grandparent);
+                }
+            } else {
+                Node<T> uncle = grandparent.left;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    node = grandparent;
+                } else {
+                    if (node == parent.left) {
+                        node = parent;
+                        rightRotation(node);
+                        parent = node.parent;
+                    }
+                    parent.red = false;
+                    grandparent.red = true;
+                    leftRotation(grandparent);
+                }
+            }
+        }
+        root.red = false;
+    }
+
+    /**
+     * helper method that restores the red-black properties after a black
+     * node was removed, leaving node's subtree one black short. A red
+     * sibling is first rotated above the parent; then a sibling with two
+     * black children is recolored red and the shortage moves up to the
+     * parent, and otherwise one single or double rotation fixes the tree.
+     *
+     * @param node root of the subtree that is one black short
+     */
+    private void fixAfterRemove(Node<T> node) {
+        while (node != root && !node.red) {
+            Node<T> parent = node.parent;
+            if (node == parent.left) {
+                Node<T> sibling = parent.right;
+                if (sibling.red) {
+                    sibling.red = false;
+                    parent.red = true;
+                    leftRotation(parent);
+                    sibling = parent.right;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.red = true;
+                    node = parent;
+                } else {
+                    if (!isRed(sibling.right)) {
+                        sibling.left.red = false;
+                        sibling.red = true;
+                        rightRotation(sibling);
+                        sibling = parent.right;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.right.red = false;
+                    leftRotation(parent);
+                    node = root;
+                }
+            } else {
+                Node<T> sibling = parent.left;
+                if (sibling.red) {
+                    sibling.red = false;
+                    parent.red = true;
+                    rightRotation(parent);
+                    sibling = parent.left;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.red = true;
+                    node = parent;
+                } else {
+                    if (!isRed(sibling.left)) {
+                        sibling.right.red = false;
+                        sibling.red = true;
+                        leftRotation(sibling);
+                        sibling = parent.left;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.left.red = false;
+                    rightRotation(parent);
+                    node = root;
+                }
+            }
+        }
+        node.red = false;
+    }
+
+    /**
+     * helper method that puts a replacement where a node used to be in its
+     * parent, without touching the replacement's parent link
+     *
+     * @param node node being replaced
+     * @param replacement node taking its place, may be null
+     */
+    private void replaceChild(Node<T> node, Node<T> replacement) {
+        if (node.parent == null) {
+            root = replacement;
+        } else if (node.parent.left == node) {
+            node.parent.left = replacement;
+        } else {
+            node.parent.right = replacement;
+        }
+    }
+
+    /**
+     * right rotation around a node, keeping parent links up to date
+     *
+     * @param node root of subtree to rotate
+     */
+    private void rightRotation(Node<T> node) {
+        Node<T> leftChild = node.left;
+        node.left = leftChild.right;
+        if (leftChild.right != null) {
+            leftChild.right.parent = node;
+        }
+        leftChild.parent = node.parent;
+        replaceChild(node, leftChild);
+        leftChild.right = node;
+        node.parent = leftChild;
+        rotated();
+    }
+
+    /**
+     * left rotation around a node, keeping parent links up to date
+     *
+     * @param node root of subtree to rotate
+     */
+    private void leftRotation(Node<T> node) {
+        Node<T> rightChild = node.right;
+        node.right = rightChild.left;
+        if (rightChild.left != null) {
+            rightChild.left.parent = node;
+        }
+        rightChild.parent = node.parent;
+        replaceChild(node, rightChild);
+        rightChild.left = node;
+        node.parent = rightChild;
+        rotated();
+    }
+
+    /**
+     * Called after every single rotation. Does nothing here; TreeBenchmark
+     * overrides it to count rotations without the tree keeping a counter.
+     */
+    void rotated() {
+    }
+
+    /**
+     * Returns whether a possibly null node is red. Null leaves are black.
+     *
+     * @param node the node
+     * @return whether it is red
+     */
+    private static boolean isRed(Node<?> node) {
+        return node != null && node.red;
+    }
+
+    /**
+     * A tree node with a color and a link to its parent.
+     *
+     * @param <T> data type
+     */
+    private static final class Node<T> {
+        private T data;
+        private Node<T> left;
+        private Node<T> right;
+        private Node<T> parent;
+        private boolean red = true;
+
+        /**
+         * Creates a red leaf.
+         *
+         * @param data data of the node
+         * @param parent parent of the node, null for the root
+         */
+        private Node(T data, Node<T> parent) {
+            this.data = data;
+            this.parent = parent;
+        }
+    }
+}
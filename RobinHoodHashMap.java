@@ -0,0 +1,336 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An open addressing HashMap that uses Robin Hood linear probing.
+ *
+ * Keys and values are kept in flat parallel arrays instead of chained
+ * MapEntry nodes, so adding an entry does not allocate and lookups do not
+ * chase next pointers. Each slot also records its probe length (the distance
+ * from the slot the key hashes to, plus one, with 0 meaning empty). On
+ * insert, an entry that has probed further than the resident of a slot takes
+ * that slot and the resident keeps probing, which keeps probe lengths short
+ * and even. Removes use backward shift deletion instead of tombstones.
+ *
+ * Has the same API as HashMap.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class RobinHoodHashMap<K, V> {
+
+    public static final int INITIAL_CAPACITY = 11;
+    public static final double MAX_LOAD_FACTOR = 0.67;
+    private K[] keys;
+    private V[] values;
+    private int[] probes;
+    private int size;
+    private final double maxLoadFactor;
+
+    /**
+     * Creates a hash map with no entries. The backing arrays have an initial
+     * capacity of INITIAL_CAPACITY.
+     */
+    public RobinHoodHashMap() {
+        this(INITIAL_CAPACITY, MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates a hash map with no entries. The backing arrays have an initial
+     * capacity of the initialCapacity parameter.
+     *
+     * @param initialCapacity initial capacity of the backing arrays
+     * @throws IllegalArgumentException if initialCapacity is non-positive
+     */
+    public RobinHoodHashMap(int initialCapacity) {
+        this(initialCapacity, MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates a hash map with no entries that resizes once the given load
+     * factor would be exceeded.
+     *
+     * @param initialCapacity initial capacity of the backing arrays
+     * @param maxLoadFactor load factor that triggers a resize, in (0, 1)
+     * @throws IllegalArgumentException if initialCapacity is non-positive or
+     * maxLoadFactor is not in (0, 1)
+     */
+    public RobinHoodHashMap(int initialCapacity, double maxLoadFactor) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (!(maxLoadFactor > 0 && maxLoadFactor < 1)) {
+            throw new IllegalArgumentException("Load factor must be between"
+                    + " 0 and 1");
+        }
+        this.maxLoadFactor = maxLoadFactor;
+        keys = (K[]) new Object[initialCapacity];
+        values = (V[]) new Object[initialCapacity];
+        probes = new int[initialCapacity];
+        size = 0;
+    }
+
+    /**
+     * Adds the given key-value pair to the map. If the key is already in the
+     * map, its value is replaced in place.
+     *
+     * Like HashMap, the load factor is checked before anything else and the
+     * table is resized to 2 * old length + 1 if adding would exceed it.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key or value is null
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        if ((size + 1.0) / keys.length > maxLoadFactor) {
+            resizeBackingTable(2 * keys.length + 1);
+        }
+        int index = findSlot(key);
+        if (index >= 0) {
+            V old = values[index];
+            values[index] = value;
+            return old;
+        }
+        insert(key, value, keys, values, probes);
+        size++;
+        return null;
+    }
+
+    /**
+     * helper method that gets the home index for a key
+     *
+     * @param key key to find the index of
+     * @param length length of the table
+     * @return index the key hashes to
+     */
+    private int findInd(K key, int length) {
+        return (key.hashCode() & 0x7FFFFFFF) % length;
+    }
+
+    /**
+     * Finds the slot holding the key.
+     *
+     * The probe stops early once it reaches a slot whose resident is closer
+     * to its home than the key would be, since Robin Hood ordering means the
+     * key cannot be any further along.
+     *
+     * @param key key to search for
+     * @return index of the key, or -1 if the key is not in the map
+     */
+    private int findSlot(K key) {
+        int index = findInd(key, keys.length);
+        int probe = 1;
+        while (probes[index] >= probe) {
+            if (probes[index] == probe && keys[index].equals(key)) {
+                return index;
+            }
+            if (++index == keys.length) {
+                index = 0;
+            }
+            probe++;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts a key that is known not to be in the given arrays, displacing
+     * residents that are closer to their home slot.
+     *
+     * @param key key to insert
+     * @param value value to insert
+     * @param k key array
+     * @param v value array
+     * @param p probe length array
+     */
+    private void insert(K key, V value, K[] k, V[] v, int[] p) {
+        int index = findInd(key, k.length);
+        int probe = 1;
+        while (p[index] != 0) {
+            if (p[index] < probe) {
+                K tempKey = k[index];
+                V tempValue = v[index];
+                int tempProbe = p[index];
+                k[index] = key;
+                v[index] = value;
+                p[index] = probe;
+                key = tempKey;
+                value = tempValue;
+                probe = tempProbe;
+            }
+            if (++index == k.length) {
+                index = 0;
+            }
+            probe++;
+        }
+        k[index] = key;
+        v[index] = value;
+        p[index] = probe;
+    }
+
+    /**
+     * Resizes the backing arrays to the specified length and reinserts every
+     * entry. The load factor is disregarded, but the length must leave room
+     * for every entry.
+     *
+     * @param length new length of the backing arrays
+     * @throws IllegalArgumentException if length is non-positive or less than
+     * or equal to the number of items in the map
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length <= size) {
+            throw new IllegalArgumentException("Length cannot be negative"
+                    + " or less than size");
+        }
+        K[] newKeys = (K[]) new Object[length];
+        V[] newValues = (V[]) new Object[length];
+        int[] newProbes = new int[length];
+        for (int i = 0; i < keys.length; i++) {
+            if (probes[i] != 0) {
+                insert(keys[i], values[i], newKeys, newValues, newProbes);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        probes = newProbes;
+    }
+
+    /**
+     * Removes the entry with a matching key from the map.
+     *
+     * The entries after the removed slot are shifted back one slot until an
+     * empty slot or an entry already in its home slot is reached, so no
+     * tombstones are left behind.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key does not exist
+     * @return the value previously associated with the key
+     */
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int index = findSlot(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key does not exist");
+        }
+        V temp = values[index];
+        int next = (index + 1) % keys.length;
+        while (probes[next] > 1) {
+            keys[index] = keys[next];
+            values[index] = values[next];
+            probes[index] = probes[next] - 1;
+            index = next;
+            if (++next == keys.length) {
+                next = 0;
+            }
+        }
+        keys[index] = null;
+        values[index] = null;
+        probes[index] = 0;
+        size--;
+        return temp;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int index = findSlot(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key does not exist");
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     *
+     * @return set of keys in this map
+     */
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<K>(keys.length, (float) maxLoadFactor);
+        for (int i = 0; i < keys.length; i++) {
+            if (probes[i] != 0) {
+                set.add(keys[i]);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Returns a List view of the values contained in this map, in order of
+     * increasing slot index.
+     *
+     * @return list of values in this map
+     */
+    public List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for (int i = 0; i < values.length; i++) {
+            if (probes[i] != 0) {
+                list.add(values[i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Clears the map and resets the backing arrays to INITIAL_CAPACITY.
+     */
+    public void clear() {
+        keys = (K[]) new Object[INITIAL_CAPACITY];
+        values = (V[]) new Object[INITIAL_CAPACITY];
+        probes = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Returns the size of the map.
+     *
+     * @return number of items in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the length of the backing arrays.
+     *
+     * @return capacity of the map
+     */
+    public int capacity() {
+        return keys.length;
+    }
+}
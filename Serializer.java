@@ -0,0 +1,107 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns keys or values into bytes and back, for maps that store their
+ * entries outside of the Java heap.
+ *
+ * A fixed width serializer returns the same size for every value, a variable
+ * width one returns the exact encoded length of each value. Equal values
+ * must serialize to equal bytes, since stores may compare and hash the bytes
+ * instead of calling equals and hashCode.
+ *
+ * @param <T> the type being serialized
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public interface Serializer<T> {
+
+    /**
+     * Serializes Integers as 4 bytes.
+     */
+    Serializer<Integer> INTEGER = new Serializer<Integer>() {
+        @Override
+        public int size(Integer value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer value, ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int length) {
+            return buffer.getInt();
+        }
+    };
+
+    /**
+     * Serializes Longs as 8 bytes.
+     */
+    Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public int size(Long value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long value, ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int length) {
+            return buffer.getLong();
+        }
+    };
+
+    /**
+     * Serializes Strings as their UTF-8 bytes.
+     */
+    Serializer<String> STRING = new Serializer<String>() {
+        @Override
+        public int size(String value) {
+            return value.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        @Override
+        public void write(String value, ByteBuffer buffer) {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer buffer, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Returns the number of bytes the value serializes to.
+     *
+     * @param value value to measure
+     * @return encoded length in bytes
+     */
+    int size(T value);
+
+    /**
+     * Writes exactly size(value) bytes at the buffer's position.
+     *
+     * @param value value to write
+     * @param buffer buffer to write to
+     */
+    void write(T value, ByteBuffer buffer);
+
+    /**
+     * Reads a value of the given encoded length from the buffer's position.
+     *
+     * @param buffer buffer to read from
+     * @param length encoded length in bytes
+     * @return the value
+     */
+    T read(ByteBuffer buffer, int length);
+}
@@ -0,0 +1,497 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A thread safe HashMap that splits its external chaining table into
+ * independently locked segments.
+ *
+ * A key's hash picks its segment, and each segment is its own chaining
+ * table with its own lock, size and resizing. Writers only lock the segment
+ * they touch, so writers on different segments run in parallel. Readers
+ * never lock. Entry keys never change once an entry is published, values
+ * and next pointers are volatile, and a resize builds a new table out of new
+ * entries before publishing it, so a reader always walks a consistent chain.
+ * Reads that race with writes see either the old or the new value.
+ *
+ * Has the same API as HashMap, plus putIfAbsent and computeIfAbsent, which
+ * are atomic.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class StripedHashMap<K, V> {
+
+    public static final int INITIAL_CAPACITY = 11;
+    public static final double MAX_LOAD_FACTOR = 0.67;
+    public static final int DEFAULT_SEGMENTS = 16;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final int segmentShift;
+
+    /**
+     * Creates a map with DEFAULT_SEGMENTS segments, each with a table of
+     * length INITIAL_CAPACITY.
+     */
+    public StripedHashMap() {
+        this(DEFAULT_SEGMENTS, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a map with no entries.
+     *
+     * @param segmentCount number of independently locked segments, rounded
+     * up to a power of two
+     * @param segmentCapacity initial table length of each segment
+     * @throws IllegalArgumentException if either parameter is non-positive
+     */
+    public StripedHashMap(int segmentCount, int segmentCapacity) {
+        if (segmentCount <= 0 || segmentCapacity <= 0) {
+            throw new IllegalArgumentException("Segment count and capacity"
+                    + " must be positive");
+        }
+        int count = 1;
+        int bits = 0;
+        while (count < segmentCount) {
+            count <<= 1;
+            bits++;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+        segmentMask = count - 1;
+        segmentShift = 31 - bits;
+    }
+
+    /**
+     * Adds the given key-value pair to the map, replacing the value if the
+     * key is already in the map.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key or value is null
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        int hash = spread(key);
+        return segmentFor(hash).put(key, hash, value, false);
+    }
+
+    /**
+     * Adds the given key-value pair only if the key is not already in the
+     * map. The check and the add happen atomically.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key or value is null
+     * @return null if the value was added, otherwise the value already
+     * associated with the key
+     */
+    public V putIfAbsent(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        int hash = spread(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    /**
+     * Returns the value associated with the key, computing and adding it
+     * first if the key is not in the map. The mapping function is called at
+     * most once per absent key, while the key's segment is locked, so it
+     * should be short and must not update this map.
+     *
+     * @param key key to look up
+     * @param mappingFunction function that computes a value for the key
+     * @throws IllegalArgumentException if key or mappingFunction is null, or
+     * if mappingFunction returns null
+     * @return the existing or newly computed value
+     */
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null) {
+            throw new IllegalArgumentException("Key and mapping function"
+                    + " cannot be null");
+        }
+        int hash = spread(key);
+        Segment<K, V> segment = segmentFor(hash);
+        Node<K, V> node = segment.find(key, hash);
+        if (node != null) {
+            return node.value;
+        }
+        return segment.computeIfAbsent(key, hash, mappingFunction);
+    }
+
+    /**
+     * Removes the entry with a matching key from the map.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key does not exist
+     * @return the value previously associated with the key
+     */
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int hash = spread(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    /**
+     * Gets the value associated with the given key without locking.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int hash = spread(key);
+        Node<K, V> node = segmentFor(hash).find(key, hash);
+        if (node == null) {
+            throw new NoSuchElementException("Key does not exist");
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns whether or not the key is in the map, without locking.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int hash = spread(key);
+        return segmentFor(hash).find(key, hash) != null;
+    }
+
+    /**
+     * Returns a Set copy of the keys contained in this map. Segments are read
+     * one at a time without locking, so the copy is not an atomic snapshot of
+     * the whole map.
+     *
+     * @return set of keys in this map
+     */
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<K, V> n = table.get(i); n != null; n = n.next) {
+                    set.add(n.key);
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Returns a List copy of the values contained in this map. Like keySet,
+     * this is not an atomic snapshot of the whole map.
+     *
+     * @return list of values in this map
+     */
+    public List<V> values() {
+        List<V> list = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<K, V> n = table.get(i); n != null; n = n.next) {
+                    list.add(n.value);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Resizes every segment's table to the specified length.
+     *
+     * @param length new table length for each segment
+     * @throws IllegalArgumentException if length is non-positive
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Length must be positive");
+        }
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.resize(length);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Clears every segment, resetting each table to INITIAL_CAPACITY.
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+                segment.size = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the map, summed over the segments without locking.
+     *
+     * @return number of items in the map
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Mixes the high bits of the hash code into the low bits, so that both
+     * the segment and the bucket index depend on the whole hash code.
+     *
+     * @param key key to hash
+     * @return spread, non-negative hash of the key
+     */
+    private static int spread(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & 0x7FFFFFFF;
+    }
+
+    /**
+     * Picks the segment for a hash. Uses the high bits, since the low bits
+     * are used for the bucket index inside the segment.
+     *
+     * @param hash spread hash of a key
+     * @return segment that owns the key
+     */
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * An entry in a segment's chain. The key and hash never change after the
+     * node is published.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private final int hash;
+        private volatile V value;
+        private volatile Node<K, V> next;
+
+        /**
+         * Creates a node.
+         *
+         * @param key key of the entry
+         * @param hash spread hash of the key
+         * @param value value of the entry
+         * @param next next node in the chain
+         */
+        private Node(K key, int hash, V value, Node<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * One independently locked chaining table.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile AtomicReferenceArray<Node<K, V>> table;
+        private volatile int size;
+
+        /**
+         * Creates an empty segment.
+         *
+         * @param capacity initial table length
+         */
+        private Segment(int capacity) {
+            table = new AtomicReferenceArray<>(capacity);
+        }
+
+        /**
+         * Finds the node for a key without locking.
+         *
+         * @param key key to search for
+         * @param hash spread hash of the key
+         * @return the node, or null if the key is not in this segment
+         */
+        private Node<K, V> find(K key, int hash) {
+            AtomicReferenceArray<Node<K, V>> t = table;
+            Node<K, V> current = t.get(hash % t.length());
+            while (current != null) {
+                if (current.hash == hash && current.key.equals(key)) {
+                    return current;
+                }
+                current = current.next;
+            }
+            return null;
+        }
+
+        /**
+         * Adds or replaces an entry under the segment lock. New entries go at
+         * the front of the chain.
+         *
+         * @param key key to add
+         * @param hash spread hash of the key
+         * @param value value to add
+         * @param onlyIfAbsent whether to keep an existing value
+         * @return the previous value, or null if the key was absent
+         */
+        private V put(K key, int hash, V value, boolean onlyIfAbsent) {
+            lock.lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node != null) {
+                    V old = node.value;
+                    if (!onlyIfAbsent) {
+                        node.value = value;
+                    }
+                    return old;
+                }
+                link(key, hash, value);
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Computes and adds a value for an absent key under the segment
+         * lock, checking again for the key first.
+         *
+         * @param key key to add
+         * @param hash spread hash of the key
+         * @param mappingFunction function that computes the value
+         * @return the existing or newly computed value
+         */
+        private V computeIfAbsent(K key, int hash,
+                Function<? super K, ? extends V> mappingFunction) {
+            lock.lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node != null) {
+                    return node.value;
+                }
+                V value = mappingFunction.apply(key);
+                if (value == null) {
+                    throw new IllegalArgumentException("Computed value"
+                            + " cannot be null");
+                }
+                link(key, hash, value);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Links a new entry into the table, growing the table to
+         * 2 * old length + 1 first if the load factor would be exceeded.
+         * Must hold the lock.
+         *
+         * @param key key to add
+         * @param hash spread hash of the key
+         * @param value value to add
+         */
+        private void link(K key, int hash, V value) {
+            if ((size + 1.0) / table.length() > MAX_LOAD_FACTOR) {
+                resize(2 * table.length() + 1);
+            }
+            AtomicReferenceArray<Node<K, V>> t = table;
+            int index = hash % t.length();
+            t.set(index, new Node<>(key, hash, value, t.get(index)));
+            size = size + 1;
+        }
+
+        /**
+         * Removes an entry under the segment lock.
+         *
+         * @param key key to remove
+         * @param hash spread hash of the key
+         * @throws java.util.NoSuchElementException if the key does not exist
+         * @return the removed value
+         */
+        private V remove(K key, int hash) {
+            lock.lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> t = table;
+                int index = hash % t.length();
+                Node<K, V> previous = null;
+                Node<K, V> current = t.get(index);
+                while (current != null) {
+                    if (current.hash == hash && current.key.equals(key)) {
+                        if (previous == null) {
+                            t.set(index, current.next);
+                        } else {
+                            previous.next = current.next;
+                        }
+                        size = size - 1;
+                        return current.value;
+                    }
+                    previous = current;
+                    current = current.next;
+                }
+                throw new NoSuchElementException("Key does not exist");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Rehashes every entry into a new table of the given length, built
+         * from new nodes so readers still on the old table are unaffected.
+         * Must hold the lock.
+         *
+         * @param length new table length
+         */
+        private void resize(int length) {
+            AtomicReferenceArray<Node<K, V>> old = table;
+            AtomicReferenceArray<Node<K, V>> t =
+                    new AtomicReferenceArray<>(length);
+            for (int i = 0; i < old.length(); i++) {
+                for (Node<K, V> n = old.get(i); n != null; n = n.next) {
+                    int index = n.hash % length;
+                    t.set(index, new Node<>(n.key, n.hash, n.value,
+                            t.get(index)));
+                }
+            }
+            table = t;
+        }
+    }
+}
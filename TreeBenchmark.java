@@ -0,0 +1,651 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Side by side timing of the tree implementations.
+ *
+ * Run with {@code java TreeBenchmark [name]}, where name picks a single
+ * benchmark. With no name every benchmark is run. Each timing is the best of
+ * several rounds after a warm up round, so the JIT has compiled the code
+ * being measured.
+ *
+ * @author Carson Duerr
+ * @userid cduerr3
+ * @GTID 903186923
+ * @version 1.0
+ */
+public class TreeBenchmark {
+
+    private static final int ENTRIES = 1 << 20;
+    private static final int DEGENERATE_ENTRIES = 1 << 14;
+    private static final int ROUNDS = 5;
+    private static final int RANGE_WIDTH = 100;
+    private static final int CHURN_ENTRIES = 1 << 18;
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int CONCURRENT_KEYS = 1 << 16;
+    private static final long CONCURRENT_MILLIS = 1000;
+
+    /**
+     * Entry point.
+     *
+     * @param args optional name of a single benchmark to run
+     */
+    public static void main(String[] args) {
+        String name = (args.length == 0) ? "all" : args[0];
+        if (name.equals("all") || name.equals("iterative")) {
+            iterative();
+        }
+        if (name.equals("all") || name.equals("bulk")) {
+            bulk();
+        }
+        if (name.equals("all") || name.equals("setops")) {
+            setOperations();
+        }
+        if (name.equals("all") || name.equals("bplus")) {
+            bPlusTree();
+        }
+        if (name.equals("all") || name.equals("eytzinger")) {
+            eytzinger();
+        }
+        if (name.equals("all") || name.equals("primitive")) {
+            primitive();
+        }
+        if (name.equals("all") || name.equals("churn")) {
+            CountingAVL<Integer> avl = new CountingAVL<>();
+            churn("AVL", avl::add, avl::remove, () -> avl.rotations);
+            CountingRedBlackTree<Integer> redBlack =
+                    new CountingRedBlackTree<>();
+            churn("RedBlack", redBlack::add, redBlack::remove,
+                    () -> redBlack.rotations);
+        }
+        if (name.equals("all") || name.equals("concurrent")) {
+            concurrent();
+        }
+    }
+
+    /**
+     * Times add, contains and remove on BST and AVL for sorted, random and
+     * zigzag (0, n - 1, 1, n - 2, ...) input. Sorted and zigzag input turn
+     * the BST into a single path, which used to overflow the stack at around
+     * 10k elements, so the BST only gets DEGENERATE_ENTRIES of them. The
+     * scapegoat BST ("SGT") stays balanced and gets every input.
+     */
+    private static void iterative() {
+        String[] inputs = {"sorted", "random", "zigzag"};
+        System.out.println("iterative: ns per operation");
+        System.out.println("tree  input   entries     add  contains   remove");
+        for (String input : inputs) {
+            for (int count : new int[] {DEGENERATE_ENTRIES, ENTRIES}) {
+                Integer[] keys = keys(input, count);
+                if (count == DEGENERATE_ENTRIES || input.equals("random")) {
+                    timeBst(input, keys, BST.Balancing.NONE);
+                }
+                timeBst(input, keys, BST.Balancing.SCAPEGOAT);
+                timeAvl(input, keys);
+            }
+        }
+    }
+
+    /**
+     * Times one BST fill, lookup of every key and removal of every key.
+     *
+     * @param input name of the input order
+     * @param keys keys in insertion order
+     * @param balancing balancing policy of the BST
+     */
+    private static void timeBst(String input, Integer[] keys,
+                                BST.Balancing balancing) {
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round <= ROUNDS; round++) {
+            BST<Integer> tree = new BST<>(balancing);
+            long start = System.nanoTime();
+            for (Integer key : keys) {
+                tree.add(key);
+            }
+            long add = System.nanoTime() - start;
+            start = System.nanoTime();
+            int found = 0;
+            for (Integer key : keys) {
+                found += tree.contains(key) ? 1 : 0;
+            }
+            long contains = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (Integer key : keys) {
+                tree.remove(key);
+            }
+            long remove = System.nanoTime() - start;
+            check(found == keys.length && tree.size() == 0);
+            if (round > 0) {
+                best[0] = Math.min(best[0], add);
+                best[1] = Math.min(best[1], contains);
+                best[2] = Math.min(best[2], remove);
+            }
+        }
+        print((balancing == BST.Balancing.NONE) ? "BST" : "SGT", input,
+                keys.length, best);
+    }
+
+    /**
+     * Times one AVL fill, lookup of every key and removal of every key.
+     *
+     * @param input name of the input order
+     * @param keys keys in insertion order
+     */
+    private static void timeAvl(String input, Integer[] keys) {
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round <= ROUNDS; round++) {
+            AVL<Integer> tree = new AVL<>();
+            long start = System.nanoTime();
+            for (Integer key : keys) {
+                tree.add(key);
+            }
+            long add = System.nanoTime() - start;
+            start = System.nanoTime();
+            int found = 0;
+            for (Integer key : keys) {
+                found += tree.contains(key) ? 1 : 0;
+            }
+            long contains = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (Integer key : keys) {
+                tree.remove(key);
+            }
+            long remove = System.nanoTime() - start;
+            check(found == keys.length && tree.size() == 0);
+            if (round > 0) {
+                best[0] = Math.min(best[0], add);
+                best[1] = Math.min(best[1], contains);
+                best[2] = Math.min(best[2], remove);
+            }
+        }
+        print("AVL", input, keys.length, best);
+    }
+
+    /**
+     * Compares building an AVL by calling add once per key with the bulk
+     * building Collection constructor, for sorted and random input.
+     */
+    private static void bulk() {
+        System.out.println("bulk: " + ENTRIES + " keys, ms per build");
+        System.out.println("input     add loop  constructor");
+        for (String input : new String[] {"sorted", "random"}) {
+            List<Integer> keys = Arrays.asList(keys(input, ENTRIES));
+            long bestLoop = Long.MAX_VALUE;
+            long bestBulk = Long.MAX_VALUE;
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                AVL<Integer> loop = new AVL<>();
+                for (Integer key : keys) {
+                    loop.add(key);
+                }
+                long loopTime = System.nanoTime() - start;
+                start = System.nanoTime();
+                AVL<Integer> built = new AVL<>(keys);
+                long bulkTime = System.nanoTime() - start;
+                check(loop.size() == ENTRIES && built.size() == ENTRIES);
+                if (round > 0) {
+                    bestLoop = Math.min(bestLoop, loopTime);
+                    bestBulk = Math.min(bestBulk, bulkTime);
+                }
+            }
+            System.out.printf("%-9s %9.1f %12.1f%n", input, bestLoop / 1e6,
+                    bestBulk / 1e6);
+        }
+    }
+
+    /**
+     * Compares merging one AVL into another by adding its data one at a
+     * time with the join based union, for a small tree merged into a large
+     * one and for two large trees of interleaved keys.
+     */
+    private static void setOperations() {
+        System.out.println("setops: ms per union");
+        System.out.println("sizes             add loop    union");
+        int[] smallSizes = {1 << 10, ENTRIES};
+        for (int smallSize : smallSizes) {
+            List<Integer> evens = new ArrayList<>(ENTRIES);
+            for (int i = 0; i < ENTRIES; i++) {
+                evens.add(2 * i);
+            }
+            List<Integer> odds = new ArrayList<>(smallSize);
+            int step = ENTRIES / smallSize;
+            for (int i = 0; i < smallSize; i++) {
+                odds.add(2 * i * step + 1);
+            }
+            long bestLoop = Long.MAX_VALUE;
+            long bestUnion = Long.MAX_VALUE;
+            for (int round = 0; round <= ROUNDS; round++) {
+                AVL<Integer> large = new AVL<>(evens);
+                AVL<Integer> small = new AVL<>(odds);
+                long start = System.nanoTime();
+                for (Integer key : small) {
+                    large.add(key);
+                }
+                long loopTime = System.nanoTime() - start;
+                check(large.size() == ENTRIES + smallSize);
+                large = new AVL<>(evens);
+                start = System.nanoTime();
+                large.union(small);
+                long unionTime = System.nanoTime() - start;
+                check(large.size() == ENTRIES + smallSize);
+                if (round > 0) {
+                    bestLoop = Math.min(bestLoop, loopTime);
+                    bestUnion = Math.min(bestUnion, unionTime);
+                }
+            }
+            System.out.printf("%-7d + %-7d %9.2f %8.2f%n", ENTRIES, smallSize,
+                    bestLoop / 1e6, bestUnion / 1e6);
+        }
+    }
+
+    /**
+     * Times a tree under constant churn: filled with CHURN_ENTRIES keys,
+     * then each step removes a random key and adds a new one. Prints the
+     * best time per step over several windows of steps after a warm up
+     * window, and how many single rotations a step did on average.
+     *
+     * @param tree name of the tree
+     * @param add adds a key to the tree
+     * @param remove removes a key from the tree
+     * @param rotations reads the tree's rotation count
+     */
+    private static void churn(String tree, Consumer<Integer> add,
+                              Consumer<Integer> remove,
+                              LongSupplier rotations) {
+        if (tree.equals("AVL")) {
+            System.out.println("churn: " + CHURN_ENTRIES + " keys, per step"
+                    + " of one remove and one add");
+            System.out.println("tree          ns     rotations");
+        }
+        Random random = new Random(0);
+        int[] live = new int[CHURN_ENTRIES];
+        int next = 0;
+        for (int i = 0; i < CHURN_ENTRIES; i++) {
+            live[i] = next++ * 0x9E3779B1;
+            add.accept(live[i]);
+        }
+        int steps = ENTRIES / 4;
+        long best = Long.MAX_VALUE;
+        long bestRotations = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long before = rotations.getAsLong();
+            long start = System.nanoTime();
+            for (int i = 0; i < steps; i++) {
+                int j = random.nextInt(CHURN_ENTRIES);
+                remove.accept(live[j]);
+                live[j] = next++ * 0x9E3779B1;
+                add.accept(live[j]);
+            }
+            long time = System.nanoTime() - start;
+            if (round > 0 && time < best) {
+                best = time;
+                bestRotations = rotations.getAsLong() - before;
+            }
+        }
+        System.out.printf("%-9s %7.1f %13.3f%n", tree, best / (double) steps,
+                bestRotations / (double) steps);
+    }
+
+    /**
+     * Compares LockFreeSkipList with an AVL behind one global lock, using a
+     * mix of 90% contains and 10% add or remove from an increasing number
+     * of threads. Even keys are always present and are the ones looked up;
+     * the updates flip odd keys in and out of the set.
+     */
+    private static void concurrent() {
+        System.out.println("concurrent: million ops per second, 90%"
+                + " contains");
+        System.out.println("threads  locked  skiplist");
+        for (int threads : THREADS) {
+            AVL<Integer> locked = new AVL<>();
+            LockFreeSkipList<Integer> skipList = new LockFreeSkipList<>();
+            for (int i = 0; i < CONCURRENT_KEYS; i += 2) {
+                locked.add(i);
+                skipList.add(i);
+            }
+            double lockedRate = run(threads, () -> {
+                int key = ThreadLocalRandom.current().nextInt(CONCURRENT_KEYS);
+                if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                    synchronized (locked) {
+                        if (locked.contains(key | 1)) {
+                            locked.remove(key | 1);
+                        } else {
+                            locked.add(key | 1);
+                        }
+                    }
+                } else {
+                    synchronized (locked) {
+                        check(locked.contains(key & ~1));
+                    }
+                }
+            });
+            double skipListRate = run(threads, () -> {
+                int key = ThreadLocalRandom.current().nextInt(CONCURRENT_KEYS);
+                if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                    if (skipList.contains(key | 1)) {
+                        try {
+                            skipList.remove(key | 1);
+                        } catch (NoSuchElementException e) {
+                            // another thread removed it first
+                        }
+                    } else {
+                        skipList.add(key | 1);
+                    }
+                } else {
+                    check(skipList.contains(key & ~1));
+                }
+            });
+            System.out.printf("%7d  %6.1f  %8.1f%n", threads, lockedRate,
+                    skipListRate);
+        }
+    }
+
+    /**
+     * Runs an operation on several threads for CONCURRENT_MILLIS after a
+     * warm up of the same length.
+     *
+     * @param threads number of threads
+     * @param operation operation each thread repeats
+     * @return millions of operations per second over all threads
+     */
+    private static double run(int threads, Runnable operation) {
+        timed(threads, operation);
+        return timed(threads, operation) / (CONCURRENT_MILLIS * 1000.0);
+    }
+
+    /**
+     * Runs an operation on several threads for CONCURRENT_MILLIS.
+     *
+     * @param threads number of threads
+     * @param operation operation each thread repeats
+     * @return total number of operations completed
+     */
+    private static long timed(int threads, Runnable operation) {
+        LongAdder count = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 64; i++) {
+                        operation.run();
+                    }
+                    done += 64;
+                }
+                count.add(done);
+            });
+            workers[t].start();
+        }
+        deadline[0] = System.nanoTime() + CONCURRENT_MILLIS * 1000000;
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return count.sum();
+    }
+
+    /**
+     * Times add, contains and remove on AVL and IntAVL for sorted and random
+     * input.
+     */
+    private static void primitive() {
+        System.out.println("primitive: ns per operation");
+        System.out.println("tree  input   entries     add  contains   remove");
+        for (String input : new String[] {"sorted", "random"}) {
+            Integer[] keys = keys(input, ENTRIES);
+            timeAvl(input, keys);
+            int[] values = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = keys[i];
+            }
+            long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+            for (int round = 0; round <= ROUNDS; round++) {
+                IntAVL tree = new IntAVL();
+                long start = System.nanoTime();
+                for (int value : values) {
+                    tree.add(value);
+                }
+                long add = System.nanoTime() - start;
+                start = System.nanoTime();
+                int found = 0;
+                for (int value : values) {
+                    found += tree.contains(value) ? 1 : 0;
+                }
+                long contains = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int value : values) {
+                    tree.remove(value);
+                }
+                long remove = System.nanoTime() - start;
+                check(found == values.length && tree.size() == 0);
+                if (round > 0) {
+                    best[0] = Math.min(best[0], add);
+                    best[1] = Math.min(best[1], contains);
+                    best[2] = Math.min(best[2], remove);
+                }
+            }
+            print("Int", input, values.length, best);
+        }
+    }
+
+    /**
+     * Compares AVL with BPlusTree on point lookups of every key in random
+     * order and on range scans of RANGE_WIDTH keys starting at random keys,
+     * with keys inserted in random order.
+     */
+    private static void bPlusTree() {
+        System.out.println("bplus: " + ENTRIES + " keys, ns per lookup and"
+                + " per scan of " + RANGE_WIDTH);
+        System.out.println("tree       lookup       scan");
+        Integer[] keys = keys("random", ENTRIES);
+        Integer[] probes = keys("random", ENTRIES);
+        AVL<Integer> avl = new AVL<>();
+        BPlusTree<Integer> bPlus = new BPlusTree<>();
+        for (Integer key : keys) {
+            avl.add(key);
+            bPlus.add(key);
+        }
+        long[] bestAvl = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] bestBPlus = {Long.MAX_VALUE, Long.MAX_VALUE};
+        int scans = ENTRIES / RANGE_WIDTH;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            int found = 0;
+            for (Integer key : probes) {
+                found += avl.contains(key) ? 1 : 0;
+            }
+            long avlLookup = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (Integer key : probes) {
+                found += bPlus.contains(key) ? 1 : 0;
+            }
+            long bPlusLookup = System.nanoTime() - start;
+            start = System.nanoTime();
+            long scanned = 0;
+            for (int i = 0; i < scans; i++) {
+                int from = keys[i];
+                scanned += avl.sortedInBetween(from, from + RANGE_WIDTH).size();
+            }
+            long avlScan = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < scans; i++) {
+                int from = keys[i];
+                scanned -= bPlus.sortedInBetween(from, from + RANGE_WIDTH)
+                        .size();
+            }
+            long bPlusScan = System.nanoTime() - start;
+            check(found == 2 * ENTRIES && scanned == 0);
+            if (round > 0) {
+                bestAvl[0] = Math.min(bestAvl[0], avlLookup);
+                bestAvl[1] = Math.min(bestAvl[1], avlScan);
+                bestBPlus[0] = Math.min(bestBPlus[0], bPlusLookup);
+                bestBPlus[1] = Math.min(bestBPlus[1], bPlusScan);
+            }
+        }
+        System.out.printf("%-9s %7.1f %10.1f%n", "AVL",
+                bestAvl[0] / (double) ENTRIES, bestAvl[1] / (double) scans);
+        System.out.printf("%-9s %7.1f %10.1f%n", "BPlusTree",
+                bestBPlus[0] / (double) ENTRIES,
+                bestBPlus[1] / (double) scans);
+    }
+
+    /**
+     * Compares contains on an AVL with the read only EytzingerSet exported
+     * from it and with an IntEytzingerSet of the same keys. The probes are
+     * random values of which about half are in the set.
+     */
+    private static void eytzinger() {
+        System.out.println("eytzinger: " + ENTRIES + " keys, ns per"
+                + " contains");
+        AVL<Integer> avl = new AVL<>(Arrays.asList(keys("sorted", ENTRIES)));
+        EytzingerSet<Integer> boxed = avl.toEytzinger();
+        int[] values = new int[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            values[i] = i;
+        }
+        IntEytzingerSet primitive = new IntEytzingerSet(values);
+        Random random = new Random(0);
+        int[] probes = new int[ENTRIES];
+        Integer[] boxedProbes = new Integer[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            probes[i] = random.nextInt(2 * ENTRIES);
+            boxedProbes[i] = probes[i];
+        }
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            int avlFound = 0;
+            for (Integer probe : boxedProbes) {
+                avlFound += avl.contains(probe) ? 1 : 0;
+            }
+            long avlTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            int boxedFound = 0;
+            for (Integer probe : boxedProbes) {
+                boxedFound += boxed.contains(probe) ? 1 : 0;
+            }
+            long boxedTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            int primitiveFound = 0;
+            for (int probe : probes) {
+                primitiveFound += primitive.contains(probe) ? 1 : 0;
+            }
+            long primitiveTime = System.nanoTime() - start;
+            check(avlFound == boxedFound && avlFound == primitiveFound);
+            if (round > 0) {
+                best[0] = Math.min(best[0], avlTime);
+                best[1] = Math.min(best[1], boxedTime);
+                best[2] = Math.min(best[2], primitiveTime);
+            }
+        }
+        System.out.printf("AVL %.1f, EytzingerSet %.1f, IntEytzingerSet"
+                + " %.1f%n", best[0] / (double) ENTRIES,
+                best[1] / (double) ENTRIES, best[2] / (double) ENTRIES);
+    }
+
+    /**
+     * Prints one row of per operation timings.
+     *
+     * @param tree name of the tree
+     * @param input name of the input order
+     * @param count number of keys
+     * @param times best add, contains and remove times for all keys
+     */
+    private static void print(String tree, String input, int count,
+                              long[] times) {
+        System.out.printf("%-5s %-7s %7d %7.1f %9.1f %8.1f%n", tree, input,
+                count, times[0] / (double) count, times[1] / (double) count,
+                times[2] / (double) count);
+    }
+
+    /**
+     * Creates the keys 0 to count - 1 in the named order.
+     *
+     * @param input "sorted", "random" or "zigzag"
+     * @param count number of keys
+     * @return array of keys
+     */
+    private static Integer[] keys(String input, int count) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            if (input.equals("zigzag")) {
+                keys[i] = (i % 2 == 0) ? i / 2 : count - 1 - i / 2;
+            } else {
+                keys[i] = i;
+            }
+        }
+        if (input.equals("random")) {
+            Random random = new Random(0);
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer temp = keys[i];
+                keys[i] = keys[j];
+                keys[j] = temp;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Guards against the JIT removing the measured work.
+     *
+     * @param condition result that must hold
+     * @throws IllegalStateException if the condition is false
+     */
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("Benchmark produced a wrong"
+                    + " result");
+        }
+    }
+
+    /**
+     * AVL that counts its single rotations for the churn benchmark, so the
+     * tree itself keeps no counter.
+     *
+     * @param <T> data type
+     */
+    private static final class CountingAVL<T extends Comparable<? super T>>
+            extends AVL<T> {
+        private long rotations;
+
+        @Override
+        void rotated() {
+            rotations++;
+        }
+    }
+
+    /**
+     * RedBlackTree that counts its single rotations for the churn benchmark.
+     *
+     * @param <T> data type
+     */
+    private static final class CountingRedBlackTree<
+            T extends Comparable<? super T>> extends RedBlackTree<T> {
+        private long rotations;
+
+        @Override
+        void rotated() {
+            rotations++;
+        }
+    }
+}